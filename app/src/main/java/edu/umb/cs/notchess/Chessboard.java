@@ -2,6 +2,7 @@ package edu.umb.cs.notchess;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
@@ -9,16 +10,24 @@ import android.graphics.Paint;
 import android.graphics.Rect;
 import android.os.AsyncTask;
 import android.preference.PreferenceManager;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.TextView;
+import android.widget.Toast;
 import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.core.content.ContextCompat;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.List;
 
 public class Chessboard {
+    private static final String OPENING_BOOK_ASSET = "opening_book.nob";
+
     private final Context context;          // context of GameView
     private final View viewToDraw;          // the View object that draws the chess board
     private final TextView indicatorView;   // for showing who is the player to move now
@@ -58,6 +67,9 @@ public class Chessboard {
 
     private final View gameOverView;        // game over dialog
     private final int ai;                     // 1 -> White, -1 -> Black, 0 -> disable
+    private final PlayerAI playerAI = new PlayerAI();
+    private boolean canPonder = true;       // false while the level is not shown
+    private final GameState.MoveListener moveListener;  // toasts special moves made on the board
 
     /* settings */
 
@@ -71,6 +83,7 @@ public class Chessboard {
 
         this.ai = ai;
         this.context = context;
+        moveListener = name -> Toast.makeText(context, name, Toast.LENGTH_SHORT).show();
         this.viewToDraw = viewToDraw;
         indicatorView = levelActivity.findViewById(R.id.indicatorView);
 
@@ -141,8 +154,9 @@ public class Chessboard {
         kickBitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.kick);
         spriteRect = new Rect(0, 0, moveBitmap.getWidth(), moveBitmap.getHeight());
 
-        Piece.loadAssets(context.getResources());   // load drawables for Piece
-        GameState.setContext(context);
+        PieceSprites.loadAssets(context.getResources());   // load drawables for Piece
+        loadTablebase();
+        loadOpeningBook();
         updateMoveIndicator();
 
         if (ai == state.playerToMove)
@@ -179,7 +193,7 @@ public class Chessboard {
                 // draw a piece
                 Piece piece = state.board[y][x];
                 if (piece != null)
-                    piece.draw(canvas, block, isNeedRotate());
+                    PieceSprites.draw(piece, canvas, block, isNeedRotate());
             }
         }
 
@@ -198,18 +212,15 @@ public class Chessboard {
 
         // draw attacking areas and being attacked by which
         if (doShowAttackInfo && infoX != -1) {
-            if (state.attacking[infoY][infoX] != null) {
-                for (int[] attackBlock : state.attacking[infoY][infoX]) {
-                    block.offsetTo(blockSize * attackBlock[2], blockSize * attackBlock[3]);
-                    canvas.drawRect(block, greenPaint);
-                }
-            }
-            for (List<Integer> attacker : state.underAttackByW[infoY][infoX]) {
-                block.offsetTo(blockSize * attacker.get(0), blockSize * attacker.get(1));
-                canvas.drawRect(block, redPaint);
+            AttackMap attackMap = state.attackMap;
+            for (int i = 0; i < attackMap.getTargetCount(infoX, infoY); i++) {
+                int attackBlock = attackMap.getTarget(infoX, infoY, i);
+                block.offsetTo(blockSize * (attackBlock % columns), blockSize * (attackBlock / columns));
+                canvas.drawRect(block, greenPaint);
             }
-            for (List<Integer> attacker : state.underAttackByB[infoY][infoX]) {
-                block.offsetTo(blockSize * attacker.get(0), blockSize * attacker.get(1));
+            for (int attacker = attackMap.nextAttacker(infoX, infoY, 0); attacker >= 0;
+                 attacker = attackMap.nextAttacker(infoX, infoY, attacker + 1)) {
+                block.offsetTo(blockSize * (attacker % columns), blockSize * (attacker / columns));
                 canvas.drawRect(block, redPaint);
             }
         }
@@ -240,13 +251,16 @@ public class Chessboard {
     }
 
     private void makeMove(int xStart, int yStart, int xEnd, int yEnd, int promote) {
-        state.makeMove(xStart, yStart, xEnd, yEnd, promote, true);
+        state.makeMove(xStart, yStart, xEnd, yEnd, promote, moveListener);
+        state.clearUndo();      // moves of the game are never taken back
 
         deselect();
         updateMoveIndicator();              // update text of telling who's move next
         checkGameState();                   // check whether game is over
 
-        if (!state.isGameOver() && state.playerToMove == ai)
+        if (state.isGameOver())
+            playerAI.stopPondering();       // the game ended on a move it did not expect
+        else if (state.playerToMove == ai)
             new AIThink().execute();        // execute playerAI if it is the next to move
     }
 
@@ -296,6 +310,7 @@ public class Chessboard {
     /* UI */
 
     public void resetState() {
+        playerAI.newGame();
         state = initState.clone();
         state.playerToMove = 1;
         viewToDraw.invalidate();
@@ -305,6 +320,46 @@ public class Chessboard {
             new AIThink().execute(ai);  // execute playerAI if it is the first to move
     }
 
+    // stop the background search of playerAI, for leaving the level or going to the background
+    public void stopThinking() {
+        canPonder = false;
+        playerAI.stopPondering();
+    }
+
+    // ponder again after stopThinking(), if it is the user's move
+    public void resumeThinking() {
+        canPonder = true;
+        if (ai != 0 && state.playerToMove != ai && !state.isGameOver())
+            playerAI.startPondering(state.clone(true));
+    }
+
+    // endgame tables made by TablebaseGenerator may be copied to the app's "tablebases" folder
+    private void loadTablebase() {
+        File directory = new File(context.getFilesDir(), "tablebases");
+        if (!directory.isDirectory())
+            return;
+        try {
+            playerAI.tablebase = Tablebase.open(directory);
+        } catch (IOException e) {
+            Log.w("AI", "-- Chessboard: cannot open the tablebase", e);
+        }
+    }
+
+    // the opening book made by OpeningBookBuilder is an asset, if it has been built, stored
+    // uncompressed (see build.gradle) so it can be mapped from the APK
+    private void loadOpeningBook() {
+        try (AssetFileDescriptor descriptor = context.getAssets().openFd(OPENING_BOOK_ASSET);
+             FileInputStream input = descriptor.createInputStream();
+             FileChannel channel = input.getChannel()) {
+            playerAI.openingBook = new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength()));
+        } catch (FileNotFoundException e) {
+            // no book, every move is searched
+        } catch (IOException e) {
+            Log.w("AI", "-- Chessboard: cannot open the opening book", e);
+        }
+    }
+
     private void showGameOverDialog(int textId) {
         gameOverView.bringToFront();
         gameOverView.setVisibility(View.VISIBLE);
@@ -346,8 +401,8 @@ public class Chessboard {
     private class AIThink extends AsyncTask<Integer, Void, int[]> {
         @Override
         protected int[] doInBackground(Integer... integers) {
-            // execute playerAI
-            return PlayerAI.getMove(state.clone());
+            // execute playerAI, searching on bitboards instead of attack maps
+            return playerAI.getMove(state.clone(true));
         }
 
         @Override
@@ -355,6 +410,10 @@ public class Chessboard {
             super.onPostExecute(move);
             makeMove(move[0], move[1], move[2], move[3], move[4]);
             viewToDraw.invalidate();  // update canvas
+
+            // think about the expected reply while the user thinks
+            if (canPonder && !state.isGameOver())
+                playerAI.startPondering(state.clone(true));
         }
     }
 
@@ -10,7 +10,7 @@ import androidx.core.content.ContextCompat;
 
 public class ChessboardEditor {
     static final int MIN_SIZE = 3;
-    static final int MAX_SIZE = 20;
+    static final int MAX_SIZE = BoardGeometry.MAX_SIZE;
     static final int DEFAULT_SIZE = 8;
 
     private final View viewToDraw;          // the View object that draws the chess board
@@ -44,7 +44,7 @@ public class ChessboardEditor {
         selectedPaint = new Paint();
         selectedPaint.setColor(ContextCompat.getColor(context, R.color.trans_yellow));
 
-        Piece.loadAssets(context.getResources());   // load drawables for Piece
+        PieceSprites.loadAssets(context.getResources());   // load drawables for Piece
     }
 
     // set the chessboard and update the drawing
@@ -119,7 +119,7 @@ public class ChessboardEditor {
                 // draw a piece
                 Piece piece = board[y][x];
                 if (piece != null)
-                    piece.draw(canvas, block, false);
+                    PieceSprites.draw(piece, canvas, block, false);
             }
         }
     }
@@ -19,6 +19,25 @@ public class LevelActivity extends Activity {
         replaceView(findViewById(R.id.boardView), chessBoardView);
     }
 
+    // pondering would keep the CPU busy while the app is in the background
+    @Override
+    protected void onPause() {
+        chessBoardView.mChessboard.stopThinking();
+        super.onPause();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        chessBoardView.mChessboard.resumeThinking();
+    }
+
+    @Override
+    protected void onDestroy() {
+        chessBoardView.mChessboard.stopThinking();
+        super.onDestroy();
+    }
+
     private void replaceView(View oldView, View newView) {
         ViewGroup parent = (ViewGroup) oldView.getParent();
         ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) oldView.getLayoutParams();
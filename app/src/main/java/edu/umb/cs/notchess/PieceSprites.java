@@ -0,0 +1,78 @@
+package edu.umb.cs.notchess;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+// drawables of each Piece, kept in the app since the engine module has no Android classes
+public final class PieceSprites {
+    static boolean isLoaded;
+    static Rect spriteRect;                     // for drawing a sprite
+    static Bitmap[] wPieceBitmaps;              // containing sprites
+    static Bitmap[] bPieceBitmaps;
+    static Bitmap[] wRotatePieceBitmaps;        // containing sprites rotated 180 degrees
+    static Bitmap[] bRotatePieceBitmaps;
+
+    // private constructor prevents someone from accidentally instantiating this class
+    private PieceSprites() {}
+
+    static void loadAssets(final Resources res) {
+        if (isLoaded)
+            return;
+        isLoaded = true;
+
+        // load bitmaps for each piece
+        int numPiece = 7;
+        wPieceBitmaps = new Bitmap[numPiece];
+        bPieceBitmaps = new Bitmap[numPiece];
+        wRotatePieceBitmaps = new Bitmap[numPiece];
+        bRotatePieceBitmaps = new Bitmap[numPiece];
+
+        wPieceBitmaps[0] = BitmapFactory.decodeResource(res, R.drawable.w_king);
+        wPieceBitmaps[1] = BitmapFactory.decodeResource(res, R.drawable.w_queen);
+        wPieceBitmaps[2] = BitmapFactory.decodeResource(res, R.drawable.w_bishop);
+        wPieceBitmaps[3] = BitmapFactory.decodeResource(res, R.drawable.w_knight);
+        wPieceBitmaps[4] = BitmapFactory.decodeResource(res, R.drawable.w_rook);
+        wPieceBitmaps[5] = BitmapFactory.decodeResource(res, R.drawable.w_pawn);
+        wPieceBitmaps[6] = BitmapFactory.decodeResource(res, R.drawable.w_heart);
+
+        bPieceBitmaps[0] = BitmapFactory.decodeResource(res, R.drawable.b_king);
+        bPieceBitmaps[1] = BitmapFactory.decodeResource(res, R.drawable.b_queen);
+        bPieceBitmaps[2] = BitmapFactory.decodeResource(res, R.drawable.b_bishop);
+        bPieceBitmaps[3] = BitmapFactory.decodeResource(res, R.drawable.b_knight);
+        bPieceBitmaps[4] = BitmapFactory.decodeResource(res, R.drawable.b_rook);
+        bPieceBitmaps[5] = BitmapFactory.decodeResource(res, R.drawable.b_pawn);
+        bPieceBitmaps[6] = BitmapFactory.decodeResource(res, R.drawable.b_heart);
+
+        wRotatePieceBitmaps[0] = BitmapFactory.decodeResource(res, R.drawable.w_king_180);
+        wRotatePieceBitmaps[1] = BitmapFactory.decodeResource(res, R.drawable.w_queen_180);
+        wRotatePieceBitmaps[2] = BitmapFactory.decodeResource(res, R.drawable.w_bishop_180);
+        wRotatePieceBitmaps[3] = BitmapFactory.decodeResource(res, R.drawable.w_knight_180);
+        wRotatePieceBitmaps[4] = BitmapFactory.decodeResource(res, R.drawable.w_rook_180);
+        wRotatePieceBitmaps[5] = BitmapFactory.decodeResource(res, R.drawable.w_pawn_180);
+        wRotatePieceBitmaps[6] = BitmapFactory.decodeResource(res, R.drawable.w_heart_180);
+
+        bRotatePieceBitmaps[0] = BitmapFactory.decodeResource(res, R.drawable.b_king_180);
+        bRotatePieceBitmaps[1] = BitmapFactory.decodeResource(res, R.drawable.b_queen_180);
+        bRotatePieceBitmaps[2] = BitmapFactory.decodeResource(res, R.drawable.b_bishop_180);
+        bRotatePieceBitmaps[3] = BitmapFactory.decodeResource(res, R.drawable.b_knight_180);
+        bRotatePieceBitmaps[4] = BitmapFactory.decodeResource(res, R.drawable.b_rook_180);
+        bRotatePieceBitmaps[5] = BitmapFactory.decodeResource(res, R.drawable.b_pawn_180);
+        bRotatePieceBitmaps[6] = BitmapFactory.decodeResource(res, R.drawable.b_heart_180);
+
+        int spriteSize = wPieceBitmaps[0].getWidth();
+        spriteRect = new Rect(0, 0, spriteSize, spriteSize);
+    }
+
+    public static void draw(Piece piece, Canvas canvas, Rect dstBlock, Boolean rotate) {
+        int value = piece.value;
+        Bitmap pieceBitmap;
+        if (value > 0)
+            pieceBitmap = rotate ? wRotatePieceBitmaps[value-1] : wPieceBitmaps[value-1];
+        else
+            pieceBitmap = rotate ? bRotatePieceBitmaps[-value-1] : bPieceBitmaps[-value-1];
+        canvas.drawBitmap(pieceBitmap, spriteRect, dstBlock, null);
+    }
+}
@@ -0,0 +1,42 @@
+package edu.umb.cs.notchess;
+
+import java.util.Random;
+
+// positions the benchmarks run on, named by their @Param values:
+// "level<i>": the level Levels.boards[i], "generated<n>": a generated n x n board
+// each is a few random moves into the game, the same every run, so pieces have room to move
+final class BenchmarkBoards {
+    static final int RANDOM_MOVES = 8;
+
+    // private constructor prevents someone from accidentally instantiating this class
+    private BenchmarkBoards() {}
+
+    static GameState get(String name, boolean useBitboards) {
+        Piece[][] board;
+        if (name.startsWith("level")) {
+            board = Levels.boards[Integer.parseInt(name.substring("level".length()))];
+        } else if (name.startsWith("generated")) {
+            int size = Integer.parseInt(name.substring("generated".length()));
+            board = Levels.getRandomBoard(size, size, new Random(size));
+        } else {
+            throw new IllegalArgumentException("unknown board " + name);
+        }
+
+        // the moves are picked on bitboards, whose move order decides them, for the same position on both
+        GameState state = GameState.getStartState(board, true);
+        Random random = new Random(name.hashCode());
+        MoveList moves = new MoveList(64);
+        for (int i = 0; i < RANDOM_MOVES; i++) {
+            moves.size = 0;
+            PlayerAI.addMoves(state, moves);
+            if (moves.size == 0)
+                break;
+            state.makeMove(moves.get(random.nextInt(moves.size)));
+            if (state.checkWinner() != 0) {
+                state.unmakeMove();
+                break;
+            }
+        }
+        return state.clone(useBitboards);       // without the moves to take back
+    }
+}
@@ -0,0 +1,116 @@
+package edu.umb.cs.notchess;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// PlayerAI's score of the positions after each move of a board, apart from making the moves:
+// reading the score, keeping the distance sums up to date, and counting them from scratch
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+    @Param({"level0", "level1", "level2", "level3", "generated12", "generated20"})
+    public String board;
+
+    private GameState state;
+    private SearchWorker[] workers;     // each on the position after one move, made in setUp()
+
+    // the blocks each move changes, with the pieces on them before and after it
+    private int[][] changedBlocks;
+    private Piece[][] piecesBefore;
+    private Piece[][] piecesAfter;
+    private Piece[][] evaluatedBoard;   // the board of <evaluation>, changed by the moves only
+    private Evaluation evaluation;
+
+    @Setup
+    public void setUp() {
+        state = BenchmarkBoards.get(board, true);
+        MoveList moves = new MoveList(256);
+        PlayerAI.addMoves(state, moves);
+
+        PlayerAI playerAI = new PlayerAI();
+        workers = new SearchWorker[moves.size];
+        changedBlocks = new int[moves.size][];
+        piecesBefore = new Piece[moves.size][];
+        piecesAfter = new Piece[moves.size][];
+        for (int i = 0; i < moves.size; i++) {
+            GameState next = state.clone(true);
+            workers[i] = new SearchWorker(playerAI);
+            workers[i].reset(next);
+            workers[i].makeMove(moves.get(i));
+            workers[i].getScore();      // distances of moved Kings and Hearts are counted when asked for
+            setChangedBlocks(i, next);
+        }
+
+        evaluatedBoard = new Piece[state.board.length][];
+        for (int y = 0; y < state.board.length; y++)
+            evaluatedBoard[y] = state.board[y].clone();
+        evaluation = new Evaluation(evaluatedBoard, state.geometry);
+        evaluation.getSum();
+    }
+
+    // remember the blocks whose pieces differ between <state> and <next>, the position after move i
+    private void setChangedBlocks(int i, GameState next) {
+        BoardGeometry geometry = state.geometry;
+        int count = 0;
+        int[] blocks = new int[geometry.size];
+        for (int block = 0; block < geometry.size; block++)
+            if (state.board[geometry.yOf[block]][geometry.xOf[block]]
+                    != next.board[geometry.yOf[block]][geometry.xOf[block]])
+                blocks[count++] = block;
+
+        changedBlocks[i] = Arrays.copyOf(blocks, count);
+        piecesBefore[i] = new Piece[count];
+        piecesAfter[i] = new Piece[count];
+        for (int j = 0; j < count; j++) {
+            int x = geometry.xOf[blocks[j]];
+            int y = geometry.yOf[blocks[j]];
+            piecesBefore[i][j] = state.board[y][x];
+            piecesAfter[i][j] = next.board[y][x];
+        }
+    }
+
+    private void setPieces(int[] blocks, Piece[] pieces) {
+        BoardGeometry geometry = state.geometry;
+        for (int j = 0; j < blocks.length; j++) {
+            evaluatedBoard[geometry.yOf[blocks[j]]][geometry.xOf[blocks[j]]] = pieces[j];
+            evaluation.update(blocks[j]);
+        }
+    }
+
+    // the score of each position, with its sums up to date, as the search asks for it at a leaf
+    @Benchmark
+    public double getScore() {
+        double sum = 0;
+        for (SearchWorker worker : workers)
+            sum += worker.getScore();
+        return sum;
+    }
+
+    // the sums kept up to date over each move and its take-back, as GameState does while making
+    // them, with the distances counted again after a King or Heart moves
+    @Benchmark
+    public int updateEvaluation() {
+        int sum = 0;
+        for (int i = 0; i < changedBlocks.length; i++) {
+            setPieces(changedBlocks[i], piecesAfter[i]);
+            sum += evaluation.getSum();
+            setPieces(changedBlocks[i], piecesBefore[i]);
+        }
+        return sum + evaluation.getSum();
+    }
+
+    // the distances of all pieces, as a new position computes them
+    @Benchmark
+    public int evaluateFromScratch() {
+        return new Evaluation(state.board, state.geometry).getSum();
+    }
+}
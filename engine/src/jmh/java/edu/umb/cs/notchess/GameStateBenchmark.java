@@ -0,0 +1,50 @@
+package edu.umb.cs.notchess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// making moves in place and copying whole positions
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+    @Param({"level0", "level1", "level2", "level3", "generated12", "generated20"})
+    public String board;
+
+    @Param({"bitboards", "attackmap"})
+    public String representation;
+
+    private GameState state;
+    private boolean useBitboards;
+    private final MoveList moves = new MoveList(256);
+
+    @Setup
+    public void setUp() {
+        useBitboards = representation.equals("bitboards");
+        state = BenchmarkBoards.get(board, useBitboards);
+        PlayerAI.addMoves(state, moves);
+    }
+
+    // every move of the position made and taken back, as the search does
+    @Benchmark
+    public long makeMove() {
+        for (int i = 0; i < moves.size; i++) {
+            state.makeMove(moves.get(i));
+            state.checkWinner();
+            state.unmakeMove();
+        }
+        return state.getKey();
+    }
+
+    @Benchmark
+    public GameState cloneState() {
+        return state.clone(useBitboards);
+    }
+}
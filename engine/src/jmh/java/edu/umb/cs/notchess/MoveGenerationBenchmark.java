@@ -0,0 +1,75 @@
+package edu.umb.cs.notchess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// moves of every piece of one type on a board, of both players
+// boards without a piece of the type measure nothing
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+    @Param({"level0", "level1", "level2", "level3", "generated12", "generated20"})
+    public String board;
+
+    @Param({"King", "Queen", "Bishop", "Knight", "Rook", "Pawn"})
+    public String pieceType;
+
+    @Param({"bitboards", "attackmap"})
+    public String representation;
+
+    private GameState state;
+    private Piece[] pieces;         // of the type, with their blocks
+    private int[] xs;
+    private int[] ys;
+    private final MoveList moves = new MoveList(256);
+
+    @Setup
+    public void setUp() {
+        state = BenchmarkBoards.get(board, representation.equals("bitboards"));
+        int count = 0;
+        for (Piece[] row : state.board)
+            for (Piece piece : row)
+                if (piece != null && piece.name().endsWith("_" + pieceType))
+                    count++;
+
+        pieces = new Piece[count];
+        xs = new int[count];
+        ys = new int[count];
+        count = 0;
+        for (int y = 0; y < state.board.length; y++) {
+            for (int x = 0; x < state.board[0].length; x++) {
+                Piece piece = state.board[y][x];
+                if (piece != null && piece.name().endsWith("_" + pieceType)) {
+                    pieces[count] = piece;
+                    xs[count] = x;
+                    ys[count++] = y;
+                }
+            }
+        }
+    }
+
+    // the moves for the UI, as lists of arrays
+    @Benchmark
+    public void getMoveOptions(Blackhole blackhole) {
+        for (int i = 0; i < pieces.length; i++)
+            blackhole.consume(pieces[i].getMoveOptions(state, xs[i], ys[i], false));
+    }
+
+    // the moves packed by Move, as the search generates them
+    @Benchmark
+    public int addMoves() {
+        moves.size = 0;
+        for (int i = 0; i < pieces.length; i++)
+            pieces[i].addMoves(state, xs[i], ys[i], false, moves);
+        return moves.size;
+    }
+}
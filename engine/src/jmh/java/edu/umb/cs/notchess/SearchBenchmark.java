@@ -0,0 +1,58 @@
+package edu.umb.cs.notchess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// PlayerAI.getMove() searching to a fixed depth on one thread, from an empty transposition table
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class SearchBenchmark {
+    @Param({"level0", "level1", "level2", "level3", "generated12", "generated20"})
+    public String board;
+
+    @Param({"2", "4"})
+    public int depth;
+
+    private GameState state;
+    private PlayerAI playerAI;
+
+    // positions searched, reported as a rate next to the time of a search
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        java.util.logging.Logger.getLogger("AI").setLevel(java.util.logging.Level.WARNING);
+        state = BenchmarkBoards.get(board, true);
+        playerAI = new PlayerAI();
+        playerAI.threadCount = 1;
+        playerAI.minLookAhead = depth;
+        playerAI.maxLookAhead = depth;
+        playerAI.timeLimit = Integer.MAX_VALUE;
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        playerAI.newGame();
+    }
+
+    @Benchmark
+    public int[] search(Nodes nodes) {
+        int[] move = playerAI.getMove(state);      // state is back to its position on return
+        nodes.nodes += playerAI.nodeCount;
+        return move;
+    }
+}
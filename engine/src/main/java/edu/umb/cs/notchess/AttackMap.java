@@ -0,0 +1,138 @@
+package edu.umb.cs.notchess;
+
+import java.util.Arrays;
+
+// which blocks each piece attacks and which pieces attack each block, kept in primitive arrays
+// block (x, y) has index (y * columns + x)
+public class AttackMap {
+    final int columns;                  // dimension of the chess board
+    final int rows;
+
+    private final int words;            // longs per block in attackers
+    private final long[] attackers;     // bits of blocks attacking each block, <words> per block
+    private final int[] wAttackerCount; // number of White pieces attacking each block
+    private final int[] bAttackerCount; // number of Black pieces attacking each block
+    private final int[][] targets;      // blocks attacked by the piece on each block
+    private final int[] targetCount;    // number of entries of targets in use
+    private final int[] targetPlayer;   // owner of the piece attacking from each block, 0 if none
+
+    private final long[] pending;       // blocks whose attacks need update, see GameState
+
+    AttackMap(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        int size = columns * rows;
+        words = (size + 63) >>> 6;
+        attackers = new long[size * words];
+        wAttackerCount = new int[size];
+        bAttackerCount = new int[size];
+        targets = new int[size][];
+        targetCount = new int[size];
+        targetPlayer = new int[size];
+        pending = new long[words];
+    }
+
+    // copy of another map, so a cloned GameState does not have to compute all attacks again
+    AttackMap(AttackMap other) {
+        columns = other.columns;
+        rows = other.rows;
+        words = other.words;
+        attackers = other.attackers.clone();
+        wAttackerCount = other.wAttackerCount.clone();
+        bAttackerCount = other.bAttackerCount.clone();
+        targets = new int[other.targets.length][];
+        for (int i = 0; i < targets.length; i++)
+            targets[i] = other.targets[i] == null ? null : other.targets[i].clone();
+        targetCount = other.targetCount.clone();
+        targetPlayer = other.targetPlayer.clone();
+        pending = new long[words];
+    }
+
+    /*============================================================================================*/
+    /* update */
+
+    // add an attack of <player>'s piece on block <from> to block <to>, duplicates are ignored
+    void addAttack(int player, int from, int to) {
+        int word = to * words + (from >>> 6);
+        long bit = 1L << from;
+        if ((attackers[word] & bit) != 0)
+            return;
+        attackers[word] |= bit;
+        (player == 1 ? wAttackerCount : bAttackerCount)[to] += 1;
+
+        int[] list = targets[from];
+        if (list == null)
+            list = targets[from] = new int[8];
+        else if (targetCount[from] == list.length)
+            list = targets[from] = Arrays.copyOf(list, list.length * 2);
+        list[targetCount[from]++] = to;
+        targetPlayer[from] = player;
+    }
+
+    // remove all attacks of the piece on block <from>
+    void clearAttacks(int from) {
+        int[] counts = targetPlayer[from] == 1 ? wAttackerCount : bAttackerCount;
+        int[] list = targets[from];
+        long bit = 1L << from;
+        for (int i = 0; i < targetCount[from]; i++) {
+            int to = list[i];
+            attackers[to * words + (from >>> 6)] &= ~bit;
+            counts[to] -= 1;
+        }
+        targetCount[from] = 0;
+        targetPlayer[from] = 0;
+    }
+
+    // mark blocks <a> and <b> and every block attacking them as pending update
+    void addPending(int a, int b) {
+        pending[a >>> 6] |= 1L << a;
+        pending[b >>> 6] |= 1L << b;
+        for (int i = 0; i < words; i++)
+            pending[i] |= attackers[a * words + i] | attackers[b * words + i];
+    }
+
+    // removes and returns the first block pending update, -1 if there is none
+    int pollPending() {
+        for (int i = 0; i < words; i++) {
+            if (pending[i] != 0) {
+                int bit = Long.numberOfTrailingZeros(pending[i]);
+                pending[i] &= pending[i] - 1;
+                return (i << 6) + bit;
+            }
+        }
+        return -1;
+    }
+
+    /*============================================================================================*/
+    /* queries */
+
+    public boolean isAttackedBy(int player, int x, int y) {
+        return (player == 1 ? wAttackerCount : bAttackerCount)[y * columns + x] != 0;
+    }
+
+    // number of blocks the piece at (x, y) attacks
+    public int getTargetCount(int x, int y) {
+        return targetCount[y * columns + x];
+    }
+
+    // the i-th block the piece at (x, y) attacks
+    public int getTarget(int x, int y, int i) {
+        return targets[y * columns + x][i];
+    }
+
+    // returns the first block at or after <from> that attacks (x, y), -1 if there is none
+    public int nextAttacker(int x, int y, int from) {
+        int base = (y * columns + x) * words;
+        int i = from >>> 6;
+        if (i >= words)
+            return -1;
+        long word = attackers[base + i] & (-1L << from);
+        while (true) {
+            if (word != 0)
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            if (++i == words)
+                return -1;
+            word = attackers[base + i];
+        }
+    }
+}
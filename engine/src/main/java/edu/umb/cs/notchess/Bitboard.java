@@ -0,0 +1,115 @@
+package edu.umb.cs.notchess;
+
+import java.util.Arrays;
+
+// a set of blocks stored as bits, big enough for any board up to ChessboardEditor.MAX_SIZE
+// block (x, y) of a board with <columns> columns is bit (y * columns + x)
+public class Bitboard {
+    final long[] words;
+
+    Bitboard(int size) {
+        words = new long[(size + 63) >>> 6];
+    }
+
+    /*============================================================================================*/
+    /* single bits */
+
+    void set(int i) {
+        words[i >>> 6] |= 1L << i;
+    }
+
+    void clear(int i) {
+        words[i >>> 6] &= ~(1L << i);
+    }
+
+    boolean get(int i) {
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    // returns the index of the first bit set at or after <from>, -1 if there is none
+    int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (w >= words.length)
+            return -1;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == words.length)
+                return -1;
+            word = words[w];
+        }
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /*============================================================================================*/
+    /* whole sets, results are stored in this */
+
+    void clearAll() {
+        Arrays.fill(words, 0);
+    }
+
+    boolean isEmpty() {
+        for (long word : words)
+            if (word != 0) return false;
+        return true;
+    }
+
+    void copyFrom(Bitboard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    void or(Bitboard other) {
+        for (int i = 0; i < words.length; i++)
+            words[i] |= other.words[i];
+    }
+
+    void and(Bitboard other) {
+        for (int i = 0; i < words.length; i++)
+            words[i] &= other.words[i];
+    }
+
+    void andNot(Bitboard other) {
+        for (int i = 0; i < words.length; i++)
+            words[i] &= ~other.words[i];
+    }
+
+    boolean intersects(Bitboard other) {
+        for (int i = 0; i < words.length; i++)
+            if ((words[i] & other.words[i]) != 0) return true;
+        return false;
+    }
+
+    // this = <src> with every bit moved <n> places up (down if n < 0), bits moved out are lost
+    // <src> may be this
+    void shift(Bitboard src, int n) {
+        int length = words.length;
+        if (n >= 0) {
+            int wordShift = n >>> 6;
+            int bitShift = n & 63;
+            for (int i = length - 1; i >= 0; i--) {     // high to low, so src can be this
+                int j = i - wordShift;
+                long word = j >= 0 ? src.words[j] << bitShift : 0;
+                if (bitShift != 0 && j >= 1)
+                    word |= src.words[j - 1] >>> (64 - bitShift);
+                words[i] = word;
+            }
+        } else {
+            int wordShift = (-n) >>> 6;
+            int bitShift = (-n) & 63;
+            for (int i = 0; i < length; i++) {          // low to high, so src can be this
+                int j = i + wordShift;
+                long word = j < length ? src.words[j] >>> bitShift : 0;
+                if (bitShift != 0 && j + 1 < length)
+                    word |= src.words[j + 1] << (64 - bitShift);
+                words[i] = word;
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package edu.umb.cs.notchess;
+
+// bitboard representation of a chess board, GameState can use it instead of its attack maps
+// move targets and attacked blocks are computed by shifting whole sets of blocks at once
+public class BitboardPosition {
+    static final int[][] bishopDirections = {{-1, -1}, {1, 1}, {1, -1}, {-1, 1}};
+    static final int[][] rookDirections = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+
+    final int columns;                      // dimension of the chess board
+    final int rows;
+
+    private final Piece[] blocks;           // piece on each block, null if empty
+    private final Bitboard[] pieces;        // blocks of each kind of Piece, indexed by ordinal()
+    private final Bitboard white;           // blocks of all White pieces
+    private final Bitboard black;           // blocks of all Black pieces
+    private final Bitboard empty;
+
+    // shifting moves bits across the edge of the board, these masks remove them
+    private final Bitboard onBoard;         // every block of the board
+    private final Bitboard[] columnMasks;   // index dx + 2: blocks that can be reached moving dx columns
+
+    private final Bitboard wAttacks;        // blocks attacked by White, valid if wAttacksValid
+    private final Bitboard bAttacks;
+    private boolean wAttacksValid;
+    private boolean bAttacksValid;
+
+    // reusable sets for computation
+    private final Bitboard source;
+    private final Bitboard fill;
+    private final Bitboard step;
+    private final Bitboard targets;
+
+    BitboardPosition(Piece[][] board) {
+        columns = board[0].length;
+        rows = board.length;
+        int size = columns * rows;
+
+        blocks = new Piece[size];
+        pieces = new Bitboard[Piece.values().length];
+        for (int i = 0; i < pieces.length; i++)
+            pieces[i] = new Bitboard(size);
+        white = new Bitboard(size);
+        black = new Bitboard(size);
+        empty = new Bitboard(size);
+
+        onBoard = new Bitboard(size);
+        for (int i = 0; i < size; i++)
+            onBoard.set(i);
+        columnMasks = new Bitboard[5];
+        for (int dx = -2; dx <= 2; dx++) {
+            columnMasks[dx + 2] = new Bitboard(size);
+            for (int x = Math.max(0, dx); x < Math.min(columns, columns + dx); x++)
+                for (int y = 0; y < rows; y++)
+                    columnMasks[dx + 2].set(y * columns + x);
+        }
+
+        wAttacks = new Bitboard(size);
+        bAttacks = new Bitboard(size);
+        source = new Bitboard(size);
+        fill = new Bitboard(size);
+        step = new Bitboard(size);
+        targets = new Bitboard(size);
+
+        empty.copyFrom(onBoard);
+        for (int y = 0; y < rows; y++)
+            for (int x = 0; x < columns; x++)
+                put(x, y, board[y][x]);
+    }
+
+    /*============================================================================================*/
+    /* update */
+
+    // set the piece on a block, null to empty it
+    void put(int x, int y, Piece piece) {
+        int i = y * columns + x;
+        Piece old = blocks[i];
+        if (old == piece)
+            return;
+        if (old != null) {
+            pieces[old.ordinal()].clear(i);
+            (old.isBelongingTo(1) ? white : black).clear(i);
+        }
+        if (piece != null) {
+            pieces[piece.ordinal()].set(i);
+            (piece.isBelongingTo(1) ? white : black).set(i);
+            empty.clear(i);
+        } else {
+            empty.set(i);
+        }
+        blocks[i] = piece;
+        wAttacksValid = false;
+        bAttacksValid = false;
+    }
+
+    /*============================================================================================*/
+    /* shifting */
+
+    // dst = every block of <src> moved dx columns and dy rows, dropping those that leave the board
+    private void shift(Bitboard dst, Bitboard src, int dx, int dy) {
+        int n = dy * columns + dx;
+        dst.shift(src, n);
+        if (dx != 0)
+            dst.and(columnMasks[dx + 2]);
+        if (n > 0)
+            dst.and(onBoard);
+    }
+
+    // out |= blocks reached by sliding from <src> in direction (dx, dy), up to and including the
+    // first occupied block
+    private void slide(Bitboard out, Bitboard src, int dx, int dy) {
+        fill.copyFrom(src);
+        while (true) {
+            shift(fill, fill, dx, dy);
+            if (fill.isEmpty())
+                break;
+            out.or(fill);
+            fill.and(empty);
+        }
+    }
+
+    private void addSteps(Bitboard out, Bitboard src, int[][] directions) {
+        for (int[] dir : directions) {
+            shift(step, src, dir[0], dir[1]);
+            out.or(step);
+        }
+    }
+
+    private void addSlides(Bitboard out, Bitboard src, int[][] directions) {
+        for (int[] dir : directions)
+            slide(out, src, dir[0], dir[1]);
+    }
+
+    // out |= blocks attacked by the pieces of <src>, all taken as <piece>, including blocks of
+    // friendly pieces, the same as Piece.getMoveOptions(..., getAttacks = true)
+    private void addAttacks(Bitboard out, Bitboard src, Piece piece) {
+        if (src.isEmpty())
+            return;
+        switch (piece) {
+            case W_King:
+            case B_King:
+                addSteps(out, src, Piece.kingMoveDirections);
+                break;
+            case W_Queen:
+            case B_Queen:
+                addSlides(out, src, bishopDirections);
+                addSlides(out, src, rookDirections);
+                break;
+            case W_Bishop:
+            case B_Bishop:
+                addSlides(out, src, bishopDirections);
+                break;
+            case W_Knight:
+            case B_Knight:
+                addSteps(out, src, Piece.knightMoveDirections);
+                break;
+            case W_Rook:
+            case B_Rook:
+                addSlides(out, src, rookDirections);
+                break;
+            case W_Pawn:
+            case B_Pawn:
+                int[][] pawnMoveDir = piece.getPawnMoveDirections();   // {move, kick1, kick2}
+                shift(step, src, pawnMoveDir[1][0], pawnMoveDir[1][1]);
+                out.or(step);
+                shift(step, src, pawnMoveDir[2][0], pawnMoveDir[2][1]);
+                out.or(step);
+        }
+    }
+
+    /*============================================================================================*/
+    /* queries */
+
+    // blocks attacked by all pieces of a player, cached until the board changes
+    Bitboard getAttacksBy(int player) {
+        Bitboard attacks = player == 1 ? wAttacks : bAttacks;
+        if (player == 1 ? !wAttacksValid : !bAttacksValid) {
+            attacks.clearAll();
+            for (Piece piece : Piece.values())
+                if (piece.isBelongingTo(player))
+                    addAttacks(attacks, pieces[piece.ordinal()], piece);
+            if (player == 1) wAttacksValid = true;
+            else bAttacksValid = true;
+        }
+        return attacks;
+    }
+
+    boolean isAttackedBy(int player, int x, int y) {
+        return getAttacksBy(player).get(y * columns + x);
+    }
+
+    // blocks <piece> at (x, y) can move to, without castling and en passant
+    // the returned set is reused by the next call
+    Bitboard getTargets(Piece piece, int x, int y, boolean isMoved, boolean getAttacks) {
+        source.clearAll();
+        source.set(y * columns + x);
+        targets.clearAll();
+
+        if (piece.isPawn()) {
+            if (!getAttacks) {
+                int[] forward = piece.getPawnMoveDirections()[0];
+                shift(step, source, forward[0], forward[1]);
+                step.and(empty);
+                targets.or(step);
+                if (!isMoved) {     // a pawn can move two steps in the beginning
+                    shift(step, step, forward[0], forward[1]);
+                    step.and(empty);
+                    targets.or(step);
+                }
+            }
+            fill.clearAll();
+            addAttacks(fill, source, piece);
+            if (!getAttacks)
+                fill.and(piece.isBelongingTo(1) ? black : white);
+            targets.or(fill);
+        } else {
+            addAttacks(targets, source, piece);
+            if (!getAttacks)
+                targets.andNot(piece.isBelongingTo(1) ? white : black);
+        }
+
+        return targets;
+    }
+
+    // blocks of opponent's pieces <piece> at (x, y) can kick, without en passant
+    // the returned set is reused by the next call
+    Bitboard getCaptureTargets(Piece piece, int x, int y) {
+        source.clearAll();
+        source.set(y * columns + x);
+        targets.clearAll();
+        addAttacks(targets, source, piece);
+        targets.and(piece.isBelongingTo(1) ? black : white);
+        return targets;
+    }
+}
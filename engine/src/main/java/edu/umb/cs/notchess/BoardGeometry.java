@@ -0,0 +1,211 @@
+package edu.umb.cs.notchess;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+// blocks reachable from each block of a board, precomputed once for each board dimension
+// block (x, y) has index (y * columns + x), the same as Move
+public class BoardGeometry {
+    static final int MAX_SIZE = 20;     // largest number of columns or rows of a board
+
+    // bishop directions then rook directions, in the order moves have always been generated
+    static final int[][] directions = {{-1, -1}, {1, 1}, {1, -1}, {-1, 1},     // ↖ ↘ ↗ ↙
+            {0, -1}, {0, 1}, {-1, 0}, {1, 0}};                              // ↑ ↓ ← →
+    static final int BISHOP_DIRECTIONS = 0;     // index of the first bishop direction
+    static final int ROOK_DIRECTIONS = 4;       // index of the first rook direction
+
+    private static final HashMap<Integer, BoardGeometry> cache = new HashMap<>();
+
+    final int columns;                  // dimension of the chess board
+    final int rows;
+    final int size;                     // number of blocks
+
+    final int[] xOf;                    // column of each block
+    final int[] yOf;                    // row of each block
+    final int[][] kingSteps;            // [block] -> blocks one king step away
+    final int[][] knightJumps;          // [block] -> blocks one knight jump away
+    final int[][][] rays;               // [direction][block] -> blocks along it, nearest first
+    final int[][] pawnSteps;            // [pawn direction][block] -> block in front, -1 if none
+    final int[][][] pawnKicks;          // [pawn direction][block] -> {kick1, kick2}, -1 if none
+
+    // moves a piece needs to kick a piece on another block, on an otherwise empty board, for
+    // PlayerAI's evaluation: King steps, Knight jumps, Bishop/Rook/Queen slides and Pawn moves,
+    // of which the last has to be a kick; blocks a piece can never reach get <unreachable>
+    private static final int KING_TABLE = 0, QUEEN_TABLE = 1, BISHOP_TABLE = 2, KNIGHT_TABLE = 3,
+            ROOK_TABLE = 4, PAWN_TABLES = 5;       // one table for each pawn direction
+    final int unreachable;              // more than the moves to any reachable block
+    private final byte[][] distances;   // [table][from * size + to] -> moves
+
+    private BoardGeometry(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        size = columns * rows;
+
+        xOf = new int[size];
+        yOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            xOf[i] = i % columns;
+            yOf[i] = i / columns;
+        }
+
+        kingSteps = new int[size][];
+        knightJumps = new int[size][];
+        rays = new int[directions.length][size][];
+        for (int i = 0; i < size; i++) {
+            kingSteps[i] = getSteps(i, Piece.kingMoveDirections);
+            knightJumps[i] = getSteps(i, Piece.knightMoveDirections);
+            for (int d = 0; d < directions.length; d++)
+                rays[d][i] = getRay(i, directions[d][0], directions[d][1]);
+        }
+
+        int pawnDirections = Piece.pawnMoveDirections.length;
+        pawnSteps = new int[pawnDirections][size];
+        pawnKicks = new int[pawnDirections][size][];
+        for (int d = 0; d < pawnDirections; d++) {
+            int[][] pawnMoveDir = Piece.pawnMoveDirections[d];     // {move, kick1, kick2}
+            for (int i = 0; i < size; i++) {
+                pawnSteps[d][i] = getBlock(i, pawnMoveDir[0][0], pawnMoveDir[0][1]);
+                pawnKicks[d][i] = new int[]{getBlock(i, pawnMoveDir[1][0], pawnMoveDir[1][1]),
+                        getBlock(i, pawnMoveDir[2][0], pawnMoveDir[2][1])};
+            }
+        }
+
+        unreachable = columns + rows;
+        distances = new byte[PAWN_TABLES + pawnDirections][];
+        distances[KING_TABLE] = getDistances(kingSteps);
+        distances[KNIGHT_TABLE] = getDistances(knightJumps);
+        distances[BISHOP_TABLE] = getDistances(getSlides(BISHOP_DIRECTIONS, ROOK_DIRECTIONS));
+        distances[ROOK_TABLE] = getDistances(getSlides(ROOK_DIRECTIONS, directions.length));
+        distances[QUEEN_TABLE] = getDistances(getSlides(BISHOP_DIRECTIONS, directions.length));
+        for (int d = 0; d < pawnDirections; d++)
+            distances[PAWN_TABLES + d] = getPawnDistances(d);
+    }
+
+    // the geometry of a board with the given dimension, shared by every board of that dimension
+    static synchronized BoardGeometry get(int columns, int rows) {
+        int key = (columns << 16) | rows;
+        BoardGeometry geometry = cache.get(key);
+        if (geometry == null) {
+            geometry = new BoardGeometry(columns, rows);
+            cache.put(key, geometry);
+        }
+        return geometry;
+    }
+
+    /*============================================================================================*/
+    /* building the tables */
+
+    // block reached moving (dx, dy) from <block>, -1 if it is off the board
+    private int getBlock(int block, int dx, int dy) {
+        int x = xOf[block] + dx;
+        int y = yOf[block] + dy;
+        return x >= 0 && x < columns && y >= 0 && y < rows ? y * columns + x : -1;
+    }
+
+    private int[] getSteps(int block, int[][] stepDirections) {
+        int count = 0;
+        int[] steps = new int[stepDirections.length];
+        for (int[] dir : stepDirections) {
+            int step = getBlock(block, dir[0], dir[1]);
+            if (step >= 0)
+                steps[count++] = step;
+        }
+        return Arrays.copyOf(steps, count);
+    }
+
+    private int[] getRay(int block, int dx, int dy) {
+        int count = 0;
+        int[] ray = new int[Math.max(columns, rows)];
+        for (int next = getBlock(block, dx, dy); next >= 0; next = getBlock(next, dx, dy))
+            ray[count++] = next;
+        return Arrays.copyOf(ray, count);
+    }
+
+    // [block] -> blocks reached sliding one move along rays[firstDirection..lastDirection)
+    private int[][] getSlides(int firstDirection, int lastDirection) {
+        int[][] slides = new int[size][];
+        for (int i = 0; i < size; i++) {
+            int count = 0;
+            for (int d = firstDirection; d < lastDirection; d++)
+                count += rays[d][i].length;
+            slides[i] = new int[count];
+            count = 0;
+            for (int d = firstDirection; d < lastDirection; d++)
+                for (int block : rays[d][i])
+                    slides[i][count++] = block;
+        }
+        return slides;
+    }
+
+    // moves between every two blocks taking moves[block], by breadth first search from each block
+    private byte[] getDistances(int[][] moves) {
+        byte[] table = new byte[size * size];
+        int[] queue = new int[size];
+        for (int from = 0; from < size; from++)
+            searchDistances(moves, from, table, from * size, queue);
+        return table;
+    }
+
+    // fill table[offset + block] with the moves from <from> to each block, unreachable if none
+    private void searchDistances(int[][] moves, int from, byte[] table, int offset, int[] queue) {
+        Arrays.fill(table, offset, offset + size, (byte) unreachable);
+        table[offset + from] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int block = queue[head++];
+            for (int next : moves[block]) {
+                if (table[offset + next] == unreachable) {
+                    table[offset + next] = (byte) (table[offset + block] + 1);
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    // moves of a pawn going to <direction> to kick a piece on each block: the moves to a block
+    // from which it can kick there, plus one; on the way it may kick to change its column
+    private byte[] getPawnDistances(int direction) {
+        int[][] moves = new int[size][];
+        for (int i = 0; i < size; i++) {
+            int count = 0;
+            int[] pawnMoves = new int[3];
+            if (pawnSteps[direction][i] >= 0)
+                pawnMoves[count++] = pawnSteps[direction][i];
+            for (int kick : pawnKicks[direction][i])
+                if (kick >= 0)
+                    pawnMoves[count++] = kick;
+            moves[i] = Arrays.copyOf(pawnMoves, count);
+        }
+
+        byte[] table = new byte[size * size];
+        byte[] walk = new byte[size];
+        int[] queue = new int[size];
+        for (int from = 0; from < size; from++) {
+            searchDistances(moves, from, walk, 0, queue);
+            Arrays.fill(table, from * size, (from + 1) * size, (byte) unreachable);
+            for (int block = 0; block < size; block++) {
+                if (walk[block] == unreachable)
+                    continue;
+                for (int kick : pawnKicks[direction][block]) {
+                    if (kick >= 0 && walk[block] + 1 < table[from * size + kick])
+                        table[from * size + kick] = (byte) (walk[block] + 1);
+                }
+            }
+        }
+        return table;
+    }
+
+    /*============================================================================================*/
+    /* queries */
+
+    // moves <piece> needs to kick a piece on <to> from <from> on an empty board, see distances
+    int getDistance(Piece piece, int from, int to) {
+        int kind = Math.abs(piece.value);   // King(1), Queen, Bishop, Knight, Rook, Pawn, Heart(7)
+        if (kind == 7)                      // Hearts do not move
+            return unreachable;
+        int table = kind == 6 ? PAWN_TABLES + piece.getPawnDirection() : kind - 1;
+        return distances[table][from * size + to];
+    }
+}
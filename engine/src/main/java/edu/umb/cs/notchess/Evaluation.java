@@ -0,0 +1,139 @@
+package edu.umb.cs.notchess;
+
+// the distance part of PlayerAI's evaluation of a GameState: every piece counts the moves it needs
+// to kick the closest King/Heart of the opponent (BoardGeometry.getDistance()), against White's
+// score for White's pieces and for it for Black's pieces
+// GameState calls update() for every block a move changes, so the sums change only by those
+// blocks; when a King or Heart of one player moves or gets kicked, the distances of all the
+// opponent's pieces change, and they are computed again the next time one is asked for
+class Evaluation {
+    private final Piece[][] board;
+    private final BoardGeometry geometry;
+
+    // blocks of Kings and Hearts, the targets of the opponent's pieces
+    private final int[] wProtectees;
+    private final int[] bProtectees;
+    private int wProtecteeCount;
+    private int bProtecteeCount;
+    private final int[] protecteeOwners;    // [block] -> 1/-1 if a King or Heart of White/Black is there
+    private boolean wProtecteesMoved = true;    // wProtectees and Black's distances are outdated
+    private boolean bProtecteesMoved = true;
+
+    private final int[] blockScores;        // [block] -> part of the sums from the piece there
+    private int wSum;                       // -(distances of White's pieces)
+    private int bSum;                       // distances of Black's pieces
+
+    Evaluation(Piece[][] board, BoardGeometry geometry) {
+        this.board = board;
+        this.geometry = geometry;
+        wProtectees = new int[geometry.size];
+        bProtectees = new int[geometry.size];
+        protecteeOwners = new int[geometry.size];
+        blockScores = new int[geometry.size];
+
+        Piece piece;
+        for (int block = 0; block < geometry.size; block++) {
+            piece = board[geometry.yOf[block]][geometry.xOf[block]];
+            if (piece != null && (piece.isKing() || piece.isHeart()))
+                protecteeOwners[block] = piece.isBelongingTo(1) ? 1 : -1;
+        }
+    }
+
+    // call after the piece on <block> has changed
+    void update(int block) {
+        Piece piece = board[geometry.yOf[block]][geometry.xOf[block]];
+        int owner = piece == null || !(piece.isKing() || piece.isHeart()) ? 0
+                : piece.isBelongingTo(1) ? 1 : -1;
+        if (owner != 0 || protecteeOwners[block] != 0) {
+            setProtecteesMoved(protecteeOwners[block]);
+            setProtecteesMoved(owner);
+            protecteeOwners[block] = owner;
+        }
+
+        // distances of a player whose targets moved are all computed again later
+        int oldScore = blockScores[block];
+        if (oldScore < 0) wSum -= oldScore;
+        else bSum -= oldScore;
+        int score = 0;
+        if (piece != null && !(piece.isBelongingTo(1) ? bProtecteesMoved : wProtecteesMoved))
+            score = getBlockScore(piece, block);
+        blockScores[block] = score;
+        if (score < 0) wSum += score;
+        else bSum += score;
+    }
+
+    // distances of Black's pieces minus those of White's
+    int getSum() {
+        if (wProtecteesMoved)
+            computeDistances(1);
+        if (bProtecteesMoved)
+            computeDistances(-1);
+        return wSum + bSum;
+    }
+
+    // get the moves <piece> on <block> needs to kick the closest King/Heart of its opponent
+    int distFromTargets(Piece piece, int block) {
+        if (piece.isBelongingTo(1)) {
+            if (bProtecteesMoved)
+                computeDistances(-1);
+            return getMinDistance(bProtectees, bProtecteeCount, piece, block);
+        }
+        if (wProtecteesMoved)
+            computeDistances(1);
+        return getMinDistance(wProtectees, wProtecteeCount, piece, block);
+    }
+
+    /*============================================================================================*/
+    /* computation */
+
+    private void setProtecteesMoved(int owner) {
+        if (owner == 1) wProtecteesMoved = true;
+        else if (owner == -1) bProtecteesMoved = true;
+    }
+
+    private int getMinDistance(int[] targets, int count, Piece piece, int block) {
+        int minDist = Integer.MAX_VALUE;
+        int tmpDist;
+        for (int i = 0; i < count; i++) {
+            tmpDist = geometry.getDistance(piece, block, targets[i]);
+            if (tmpDist < minDist)
+                minDist = tmpDist;
+        }
+        return minDist;
+    }
+
+    // part of the sums from <piece> on <block>, 0 if the opponent has no targets left
+    private int getBlockScore(Piece piece, int block) {
+        if (piece.isBelongingTo(1))
+            return bProtecteeCount == 0 ? 0 : -getMinDistance(bProtectees, bProtecteeCount, piece, block);
+        return wProtecteeCount == 0 ? 0 : getMinDistance(wProtectees, wProtecteeCount, piece, block);
+    }
+
+    // find the Kings and Hearts of <owner>, then the distances of the opponent's pieces to them
+    private void computeDistances(int owner) {
+        int[] protectees = owner == 1 ? wProtectees : bProtectees;
+        int count = 0;
+        for (int block = 0; block < geometry.size; block++)
+            if (protecteeOwners[block] == owner)
+                protectees[count++] = block;
+        if (owner == 1) {
+            wProtecteeCount = count;
+            wProtecteesMoved = false;
+        } else {
+            bProtecteeCount = count;
+            bProtecteesMoved = false;
+        }
+
+        int sum = 0;
+        Piece piece;
+        for (int block = 0; block < geometry.size; block++) {
+            piece = board[geometry.yOf[block]][geometry.xOf[block]];
+            if (piece != null && !piece.isBelongingTo(owner)) {
+                blockScores[block] = getBlockScore(piece, block);
+                sum += blockScores[block];
+            }
+        }
+        if (owner == 1) bSum = sum;
+        else wSum = sum;
+    }
+}
@@ -0,0 +1,495 @@
+package edu.umb.cs.notchess;
+
+import java.util.ArrayList;
+import static edu.umb.cs.notchess.Piece.*;
+
+// for PlayerAI to do calculations
+public class GameState {
+    public final Piece[][] board;       // representation of the chess board
+    public final BoardGeometry geometry;    // precomputed moves on a board of this dimension
+    public final int[] wPieceCount;     // for determining whether the game is over ...
+    public final int[] bPieceCount;     // ... {Hearts, Kings, others}
+    public final boolean[][] isMoved;   // whether a piece has visited or move away from a block
+    public int[] lastMove;              // {xStart, yStart, xEnd, yEnd}, lastMoveBlocks or null
+    public int playerToMove;            // 1 -> White, -1 -> Black
+    public int winner;                  // 1 -> White, -1 -> Black, 0 -> game not over
+    public int moveCount;               // number of moves made
+    public double points;               // used for AI's MinMax algorithm
+
+    private long key;                   // Zobrist key of the position, kept up to date by moves
+    private final long[] blockKeys;     // part of the key from each block
+    private long passingKey;            // part of the key from an en passant chance
+
+    // each piece is attacking which blocks, and each block is being attacked by which
+    public final AttackMap attackMap;
+    // bitboards to use instead of attackMap, which is null if this is not null
+    public final BitboardPosition bitboards;
+
+    private final MoveList attackMoves = new MoveList(32);  // for computing attacks of a piece
+
+    final Evaluation evaluation;        // distances for PlayerAI's score, kept up to date by moves
+
+    private final int[] lastMoveBlocks = new int[4];    // owned by this, undo entries keep copies
+
+    // moves made so far, so they can be taken back by unmakeMove(); a state that only moves
+    // forward drops them with clearUndo()
+    private final ArrayList<Undo> undoStack = new ArrayList<>();
+    private int undoCount;                      // number of entries of undoStack in use
+
+    // told about the special moves made by makeMove() by the caller passing it, e.g. the UI;
+    // searches pass none
+    public interface MoveListener {
+        void onSpecialMove(String name);    // "castling", "en passant" or "promotion"
+    }
+
+    // everything makeMove() changes on the board, for unmakeMove() to restore
+    private static class Undo {
+        int xStart, yStart, xEnd, yEnd;         // the move that was made
+        Piece moved;                            // piece on the start block, before any promotion
+        Piece kicked;                           // piece on the end block (the rook if castling)
+        Piece passed;                           // pawn kicked by en passant
+        int xPassed, yPassed;
+        boolean castling;
+        int xKingEnd, yKingEnd, xRookEnd, yRookEnd;
+        final boolean[] wasMoved = new boolean[4];  // isMoved of start, end, king end, rook end
+        boolean hadLastMove;                    // lastMove before the move, copied
+        final int[] lastMove = new int[4];
+        int winner;
+        double points;
+    }
+
+
+    GameState(Piece[][] board, int[] wPieceCount, int[] bPieceCount,
+              boolean[][] isMoved, int[] lastMove, int playerToMove) {
+        this(board, wPieceCount, bPieceCount, isMoved, lastMove, playerToMove, false);
+    }
+
+    GameState(Piece[][] board, int[] wPieceCount, int[] bPieceCount,
+              boolean[][] isMoved, int[] lastMove, int playerToMove, boolean useBitboards) {
+        this(board, wPieceCount, bPieceCount, isMoved, lastMove, playerToMove, useBitboards, null);
+    }
+
+    // <attackMap> is copied instead of computing all attacks again if it is not null
+    private GameState(Piece[][] board, int[] wPieceCount, int[] bPieceCount,
+                      boolean[][] isMoved, int[] lastMove, int playerToMove, boolean useBitboards,
+                      AttackMap attackMap) {
+        int width = board[0].length;
+        int height = board.length;
+
+        Piece[][] newBoard = new Piece[height][];
+        for (int i = 0; i < height; i++)
+            newBoard[i] = board[i].clone();
+
+        boolean[][] newIsMoved;
+        if (isMoved == null) {
+            newIsMoved = new boolean[height][width];   // default values are false
+        }
+        else {
+            newIsMoved = new boolean[height][];
+                for (int i = 0; i < height; i++)
+                    newIsMoved[i] = isMoved[i].clone();
+        }
+
+        this.board = newBoard;
+        this.geometry = BoardGeometry.get(width, height);
+        this.isMoved = newIsMoved;
+        this.wPieceCount = wPieceCount.clone();
+        this.bPieceCount = bPieceCount.clone();
+        this.lastMove = lastMove == null ? null : copyBlocks(lastMove, lastMoveBlocks);
+        this.playerToMove = playerToMove;
+        winner = 0;
+        moveCount = 0;
+        points = 0;
+
+        blockKeys = new long[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                blockKeys[y * width + x] = Zobrist.getBlockKey(newBoard[y][x], newIsMoved[y][x],
+                        y * width + x);
+                key ^= blockKeys[y * width + x];
+            }
+        }
+        passingKey = Zobrist.getPassingKey(newBoard, this.lastMove);
+        key ^= passingKey;
+        if (playerToMove == -1)
+            key ^= Zobrist.blackToMoveKey;
+
+        evaluation = new Evaluation(newBoard, geometry);
+
+        if (useBitboards) {
+            bitboards = new BitboardPosition(newBoard);
+            this.attackMap = null;
+            return;
+        }
+        bitboards = null;
+
+        if (attackMap != null) {
+            this.attackMap = new AttackMap(attackMap);
+            return;
+        }
+
+        // initialize attacking blocks for each piece
+        this.attackMap = new AttackMap(width, height);
+        for (int x = 0; x < width; x ++) {
+            for (int y = 0; y < height; y ++) {
+                addAttacking(x, y);
+            }
+        }
+    }
+
+    // the position a level with <board> starts with, White to move and no piece moved yet
+    static GameState getStartState(Piece[][] board, boolean useBitboards) {
+        int[] wPieceCount = new int[]{0, 0, 0};     // {Hearts, Kings, others}
+        int[] bPieceCount = new int[]{0, 0, 0};
+        for (Piece[] row : board) {
+            for (Piece piece : row) {
+                if (piece != null) {
+                    int idx = piece.isHeart() ? 0 : piece.isKing() ? 1 : 2;
+                    if (piece.isBelongingTo(1)) wPieceCount[idx] += 1;
+                    else bPieceCount[idx] += 1;
+                }
+            }
+        }
+        return new GameState(board, wPieceCount, bPieceCount, null, null, 1, useBitboards);
+    }
+
+    public GameState clone() {
+        return clone(bitboards != null);
+    }
+
+    // copy this, using bitboards or attack maps as the representation of the copy
+    public GameState clone(boolean useBitboards) {
+        return new GameState(board, wPieceCount, bPieceCount, isMoved, lastMove, playerToMove,
+                useBitboards, useBitboards ? null : attackMap);
+    }
+
+    public boolean isGameOver() {
+        return winner != 0;
+    }
+
+    // whether the last move was a two-step pawn move, which may be kicked en passant
+    boolean hasPassingChance() {
+        return passingKey != 0;
+    }
+
+    // Zobrist key of this position, equal for equal positions however they were reached
+    public long getKey() {
+        return key;
+    }
+
+    public int checkWinner() {
+        if (isGameOver())
+            return winner;
+        if (wPieceCount[1] == 0 && (wPieceCount[0] == 0 || wPieceCount[2] == 0)) {
+            winner = -1;
+        } else if (bPieceCount[1] == 0 && (bPieceCount[0] == 0 || bPieceCount[2] == 0)) {
+            winner = 1;
+        }
+        return winner;
+    }
+
+    /*============================================================================================*/
+    /* move */
+
+    public boolean isUnderAttackBy(int player, int x, int y) {
+        if (bitboards != null)
+            return bitboards.isAttackedBy(player, x, y);
+        return attackMap.isAttackedBy(player, x, y);
+    }
+
+    private void addAttacking(int x, int y) {
+        Piece piece = board[y][x];
+        if (piece != null) {
+            int player = piece.isBelongingTo(1) ? 1 : -1;
+            attackMoves.clear();
+            piece.addMoves(this, x, y, true, attackMoves);
+            for (int i = 0; i < attackMoves.size; i++) {
+                int move = attackMoves.get(i);
+                attackMap.addAttack(player, Move.getStart(move), Move.getEnd(move));
+            }
+        }
+    }
+
+    // make sure to call this update function AFTER the move is made
+    public void updateAttacking(int xBefore, int yBefore, int xNow, int yNow) {
+        int columns = attackMap.columns;
+        // attacking positions need to update
+        attackMap.addPending(yBefore * columns + xBefore, yNow * columns + xNow);
+        for (int i = attackMap.pollPending(); i >= 0; i = attackMap.pollPending()) {
+            attackMap.clearAttacks(i);
+            addAttacking(i % columns, i / columns);
+        }
+    }
+
+    // replace the part of the key from a block with one for its current piece and isMoved
+    private void updateBlockKey(int x, int y) {
+        int block = y * geometry.columns + x;
+        key ^= blockKeys[block];
+        blockKeys[block] = Zobrist.getBlockKey(board[y][x], isMoved[y][x], block);
+        key ^= blockKeys[block];
+    }
+
+    // make sure to call this update function AFTER lastMove has changed
+    private void updatePassingKey() {
+        key ^= passingKey;
+        passingKey = Zobrist.getPassingKey(board, lastMove);
+        key ^= passingKey;
+    }
+
+    // make sure to call this update function AFTER the blocks have changed
+    private void updateBlocks(int x1, int y1, int x2, int y2) {
+        updateBlockKey(x1, y1);
+        updateBlockKey(x2, y2);
+        evaluation.update(y1 * geometry.columns + x1);
+        evaluation.update(y2 * geometry.columns + x2);
+        if (bitboards != null) {
+            bitboards.put(x1, y1, board[y1][x1]);
+            bitboards.put(x2, y2, board[y2][x2]);
+        } else {
+            updateAttacking(x1, y1, x2, y2);
+        }
+    }
+
+    // push an undo entry, with a copy of lastMove before the move
+    private Undo pushUndo() {
+        if (undoCount == undoStack.size())
+            undoStack.add(new Undo());
+        Undo undo = undoStack.get(undoCount++);
+        undo.hadLastMove = lastMove != null;
+        if (lastMove != null)
+            copyBlocks(lastMove, undo.lastMove);
+        return undo;
+    }
+
+    // put back lastMove from an undo entry
+    private void popLastMove(Undo undo) {
+        lastMove = undo.hadLastMove ? copyBlocks(undo.lastMove, lastMoveBlocks) : null;
+    }
+
+    // forget the moves made so far, they can no longer be taken back by unmakeMove(); for a state
+    // that only moves forward, like the UI's, so its undo stack does not grow with every move
+    public void clearUndo() {
+        undoCount = 0;
+    }
+
+    private static int[] copyBlocks(int[] from, int[] to) {
+        System.arraycopy(from, 0, to, 0, 4);
+        return to;
+    }
+
+    private static int[] setBlocks(int[] blocks, int xStart, int yStart, int xEnd, int yEnd) {
+        blocks[0] = xStart;
+        blocks[1] = yStart;
+        blocks[2] = xEnd;
+        blocks[3] = yEnd;
+        return blocks;
+    }
+
+    // make a move packed by Move, see makeMove() below
+    public void makeMove(int move) {
+        int columns = board[0].length;
+        int start = Move.getStart(move);
+        int end = Move.getEnd(move);
+        makeMove(start % columns, start / columns, end % columns, end / columns,
+                Move.getPromote(move), null);
+    }
+
+    // make a move in place, it can be taken back by unmakeMove()
+    // <listener> is told about a special move, if it is not null
+    public void makeMove(int xStart, int yStart, int xEnd, int yEnd, int promote,
+                         MoveListener listener) {
+        Piece toMove = board[yStart][xStart];
+        Piece kicked = board[yEnd][xEnd];
+
+        assert toMove != null;
+
+        Undo undo = pushUndo();
+        undo.xStart = xStart;
+        undo.yStart = yStart;
+        undo.xEnd = xEnd;
+        undo.yEnd = yEnd;
+        undo.moved = toMove;
+        undo.kicked = kicked;
+        undo.passed = null;
+        undo.castling = false;
+        undo.winner = winner;
+        undo.points = points;
+        undo.wasMoved[0] = isMoved[yStart][xStart];
+        undo.wasMoved[1] = isMoved[yEnd][xEnd];
+
+        if (kicked != null && toMove.isFriendlyWith(kicked)
+                && toMove.isKing() && kicked.isRook()) {
+            // special move: castling
+            int xDir = xEnd - xStart;
+            int yDir = yEnd - yStart;
+            int xKingEnd = xStart + Math.max(-2, Math.min(xDir, 2));
+            int yKingEnd = yStart + Math.max(-2, Math.min(yDir, 2));
+            int xRookEnd = xStart + Math.max(-1, Math.min(xDir, 1));
+            int yRookEnd = yStart + Math.max(-1, Math.min(yDir, 1));
+
+            undo.castling = true;
+            undo.xKingEnd = xKingEnd;
+            undo.yKingEnd = yKingEnd;
+            undo.xRookEnd = xRookEnd;
+            undo.yRookEnd = yRookEnd;
+            undo.wasMoved[2] = isMoved[yKingEnd][xKingEnd];
+            undo.wasMoved[3] = isMoved[yRookEnd][xRookEnd];
+
+            board[yKingEnd][xKingEnd] = board[yStart][xStart];
+            board[yStart][xStart] = null;
+            board[yRookEnd][xRookEnd] = board[yEnd][xEnd];
+            board[yEnd][xEnd] = null;
+
+            isMoved[yStart][xStart] = true;
+            isMoved[yKingEnd][xKingEnd] = true;
+            isMoved[yEnd][xEnd] = true;
+            isMoved[yRookEnd][xRookEnd] = true;
+
+            lastMove = setBlocks(lastMoveBlocks, xStart, yStart, xKingEnd, yKingEnd);
+
+            updateBlocks(xStart, yStart, xKingEnd, yKingEnd);
+            updateBlocks(xEnd, yEnd, xRookEnd, yRookEnd);
+
+            if (listener != null)
+                listener.onSpecialMove("castling");
+        } else {    // make a move
+            board[yEnd][xEnd] = toMove;
+            board[yStart][xStart] = null;
+
+            isMoved[yStart][xStart] = true;
+            isMoved[yEnd][xEnd] = true;
+
+            // special move: en passant (in passing)
+            if (kicked == null && toMove.isPawn()) {
+                int[] pawnsForward = toMove.getPawnMoveDirections()[0];
+                int xBehind = xEnd - pawnsForward[0];
+                int yBehind = yEnd - pawnsForward[1];
+                Piece pieceBehind = board[yBehind][xBehind];
+                if (pieceBehind != null && pieceBehind.isPawn()) {      // if it was en passant move
+                    kicked = pieceBehind;
+                    board[yBehind][xBehind] = null;
+
+                    undo.passed = pieceBehind;
+                    undo.xPassed = xBehind;
+                    undo.yPassed = yBehind;
+
+                    if (listener != null)
+                        listener.onSpecialMove("en passant");
+                }
+            }
+
+            // special move: promotion
+            // promote: None(-1), Queen(0), Bishop(1), Knight(2), Rook(3)
+            if (promote >= 0 && promote <= 3 && toMove.isPawn()) {
+                boolean w = toMove.isBelongingTo(1);
+                switch(promote) {
+                    case 0:
+                        toMove = w ? W_Queen : B_Queen;
+                        break;
+                    case 1:
+                        toMove = w ? W_Bishop : B_Bishop;
+                        break;
+                    case 2:
+                        toMove = w ? W_Knight : B_Knight;
+                        break;
+                    case 3:
+                        toMove = w ? W_Rook : B_Rook;
+                }
+                board[yEnd][xEnd] = toMove;
+
+                if (listener != null)
+                    listener.onSpecialMove("promotion");
+            }
+
+            // count the number of pieces left
+            if (kicked != null) {
+                int idx = kicked.isHeart() ? 0 : kicked.isKing() ? 1 : 2;
+                if (kicked.isBelongingTo(1)) wPieceCount[idx] -= 1;
+                else bPieceCount[idx] -= 1;
+            }
+
+            lastMove = setBlocks(lastMoveBlocks, xStart, yStart, xEnd, yEnd);
+
+            updateBlocks(xStart, yStart, xEnd, yEnd);
+            if (undo.passed != null)
+                updateBlocks(undo.xPassed, undo.yPassed, xEnd, yEnd);
+        }
+
+        updatePassingKey();
+        playerToMove = -playerToMove;   // opponent is the next player to move
+        key ^= Zobrist.blackToMoveKey;
+        moveCount += 1;
+    }
+
+    // pass the turn without moving, for PlayerAI's null move pruning; take it back with
+    // unmakeNullMove(), not unmakeMove()
+    public void makeNullMove() {
+        pushUndo();
+        lastMove = null;                // no en passant after a pass
+        updatePassingKey();
+        playerToMove = -playerToMove;
+        key ^= Zobrist.blackToMoveKey;
+        moveCount += 1;
+    }
+
+    public void unmakeNullMove() {
+        assert undoCount > 0;
+
+        popLastMove(undoStack.get(--undoCount));
+        updatePassingKey();
+        playerToMove = -playerToMove;
+        key ^= Zobrist.blackToMoveKey;
+        moveCount -= 1;
+    }
+
+    // take back the last move made by makeMove(), including the winner and points set after it
+    public void unmakeMove() {
+        assert undoCount > 0;
+
+        Undo undo = undoStack.get(--undoCount);
+        int xStart = undo.xStart;
+        int yStart = undo.yStart;
+        int xEnd = undo.xEnd;
+        int yEnd = undo.yEnd;
+
+        // clear the blocks pieces were moved to before putting them back, they may overlap
+        if (undo.castling) {
+            board[undo.yKingEnd][undo.xKingEnd] = null;
+            board[undo.yRookEnd][undo.xRookEnd] = null;
+            isMoved[undo.yRookEnd][undo.xRookEnd] = undo.wasMoved[3];
+            isMoved[undo.yKingEnd][undo.xKingEnd] = undo.wasMoved[2];
+        }
+        board[yStart][xStart] = undo.moved;
+        board[yEnd][xEnd] = undo.kicked;
+        isMoved[yEnd][xEnd] = undo.wasMoved[1];
+        isMoved[yStart][xStart] = undo.wasMoved[0];
+
+        // put back the number of pieces left
+        Piece kicked = undo.castling ? null : undo.passed != null ? undo.passed : undo.kicked;
+        if (undo.passed != null)
+            board[undo.yPassed][undo.xPassed] = undo.passed;
+        if (kicked != null) {
+            int idx = kicked.isHeart() ? 0 : kicked.isKing() ? 1 : 2;
+            if (kicked.isBelongingTo(1)) wPieceCount[idx] += 1;
+            else bPieceCount[idx] += 1;
+        }
+
+        popLastMove(undo);
+        winner = undo.winner;
+        points = undo.points;
+        playerToMove = -playerToMove;
+        key ^= Zobrist.blackToMoveKey;
+        moveCount -= 1;
+
+        // the same blocks changed as in makeMove(), so the same attacks need update
+        if (undo.castling) {
+            updateBlocks(xStart, yStart, undo.xKingEnd, undo.yKingEnd);
+            updateBlocks(xEnd, yEnd, undo.xRookEnd, undo.yRookEnd);
+        } else {
+            updateBlocks(xStart, yStart, xEnd, yEnd);
+            if (undo.passed != null)
+                updateBlocks(undo.xPassed, undo.yPassed, xEnd, yEnd);
+        }
+        updatePassingKey();
+    }
+}
@@ -2,6 +2,8 @@ package edu.umb.cs.notchess;
 
 import static edu.umb.cs.notchess.Piece.*;
 
+import java.util.Random;
+
 public class Levels {
     static final String[] titles = {"Hold Your Horse", "Regular Chess", "En Passant to Promotion",
             "Every Day I'm Castling"};
@@ -44,4 +46,30 @@ public class Levels {
                     {null, null, null, null, B_Rook, W_Rook, null, null}
             }
     };
+
+    private static final double RANDOM_DENSITY = 0.2;   // chance of a piece on each block of a random board
+    private static final Piece[] wRandomPieces = {W_Queen, W_Bishop, W_Knight, W_Rook, W_Pawn};
+    private static final Piece[] bRandomPieces = {B_Queen, B_Bishop, B_Knight, B_Rook, B_Pawn};
+
+    // a board with a King and a Heart for each player in the middle of their first rows, other
+    // pieces at random, White's on the lower half; the same for the same <random> seed
+    static Piece[][] getRandomBoard(int columns, int rows, Random random) {
+        Piece[][] board = new Piece[rows][columns];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (random.nextDouble() >= RANDOM_DENSITY)
+                    continue;
+                boolean isWhite = y > rows / 2 || (y == rows / 2 && random.nextBoolean());
+                Piece piece = (isWhite ? wRandomPieces : bRandomPieces)[random.nextInt(wRandomPieces.length)];
+                if (piece.isPawn() && (y == 0 || y == rows - 1))
+                    continue;   // no pawns where they would have been promoted
+                board[y][x] = piece;
+            }
+        }
+        board[rows - 1][columns / 2] = W_King;
+        board[rows - 1][columns / 2 - 1] = W_Heart;
+        board[0][columns / 2] = B_King;
+        board[0][columns / 2 - 1] = B_Heart;
+        return board;
+    }
 }
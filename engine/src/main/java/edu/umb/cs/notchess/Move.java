@@ -0,0 +1,43 @@
+package edu.umb.cs.notchess;
+
+// a move packed in an int, so generating moves does not allocate
+// bits 0-8: start block, bits 9-17: end block, bits 18-20: promote + 1, bits 21-24: flags
+// block (x, y) has index (y * columns + x), the same as Bitboard
+public final class Move {
+    static final int CAPTURE = 1 << 21;     // kicks an opponent's piece
+    static final int CASTLING = 1 << 22;    // king moving towards the rook on the end block
+    static final int EN_PASSANT = 1 << 23;  // pawn kicking a passing pawn beside it
+    static final int TWO_STEPS = 1 << 24;   // pawn moving two steps
+
+    // private constructor prevents someone from accidentally instantiating this class
+    private Move() {}
+
+    // promote: None(-1), Queen(0), Bishop(1), Knight(2), Rook(3)
+    static int pack(int start, int end, int promote, int flags) {
+        return start | (end << 9) | ((promote + 1) << 18) | flags;
+    }
+
+    static int getStart(int move) {
+        return move & 0x1FF;
+    }
+
+    static int getEnd(int move) {
+        return (move >>> 9) & 0x1FF;
+    }
+
+    static int getPromote(int move) {
+        return ((move >>> 18) & 0x7) - 1;
+    }
+
+    static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    // the move as {xStart, yStart, xEnd, yEnd, promote}, used by the UI
+    static int[] toArray(int move, int columns) {
+        int start = getStart(move);
+        int end = getEnd(move);
+        return new int[]{start % columns, start / columns, end % columns, end / columns,
+                getPromote(move)};
+    }
+}
@@ -0,0 +1,50 @@
+package edu.umb.cs.notchess;
+
+import java.util.Arrays;
+
+// a list of moves packed by Move, kept and reused so generating moves does not allocate
+// PlayerAI gives each move an ordering score in <scores> and searches them with pickBest()
+public class MoveList {
+    int[] moves;
+    int[] scores;
+    int size;
+
+    MoveList(int capacity) {
+        moves = new int[capacity];
+        scores = new int[capacity];
+    }
+
+    void add(int move) {
+        if (size == moves.length) { // only grows until the largest move list has been seen
+            moves = Arrays.copyOf(moves, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    int get(int i) {
+        return moves[i];
+    }
+
+    // move the move with the highest score among the i-th and later ones to i and return it
+    // the moves in between shift back one, so moves with the same score keep their order
+    int pickBest(int i) {
+        int best = i;
+        for (int j = i + 1; j < size; j++)
+            if (scores[j] > scores[best])
+                best = j;
+        if (best != i) {
+            int move = moves[best];
+            int score = scores[best];
+            System.arraycopy(moves, i, moves, i + 1, best - i);
+            System.arraycopy(scores, i, scores, i + 1, best - i);
+            moves[i] = move;
+            scores[i] = score;
+        }
+        return moves[i];
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
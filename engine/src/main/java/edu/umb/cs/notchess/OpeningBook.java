@@ -0,0 +1,82 @@
+package edu.umb.cs.notchess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+// moves for PlayerAI to play at once in positions searched in advance by OpeningBookBuilder
+// file: bytes 0-3: MAGIC, 4-7: number of entries, then the entries sorted by key, each of:
+//   bytes 0-7: GameState.getKey() of a position, 8-11: a move of it packed by Move,
+//   12-13: weight, how often the move is played among those of the position
+// the file is memory-mapped and searched in place, opening it reads nothing
+class OpeningBook {
+    static final int MAGIC = 0x4E4F4231;    // "NOB1"
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_SIZE = 14;
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final Random random = new Random();
+
+    OpeningBook(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException("not an opening book");
+        this.buffer = buffer;
+        entryCount = buffer.getInt(4);
+        if (buffer.capacity() != HEADER_SIZE + (long) entryCount * ENTRY_SIZE)
+            throw new IOException("opening book cut short");
+    }
+
+    static OpeningBook open(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private long getKey(int entry) {
+        return buffer.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+    }
+
+    private int getMove(int entry) {
+        return buffer.getInt(HEADER_SIZE + entry * ENTRY_SIZE + 8);
+    }
+
+    private int getWeight(int entry) {
+        return buffer.getShort(HEADER_SIZE + entry * ENTRY_SIZE + 12) & 0xFFFF;
+    }
+
+    // a move of the position with <key>, picked at random by weight, 0 if it is not in the book
+    // another position may have the same key, so the move has to be checked before playing it
+    int getMove(long key) {
+        // first entry with the key
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getKey(mid) < key) low = mid + 1;
+            else high = mid;
+        }
+
+        int totalWeight = 0;
+        int end = low;
+        for (; end < entryCount && getKey(end) == key; end++)
+            totalWeight += getWeight(end);
+        if (totalWeight == 0)
+            return 0;
+
+        int pick;
+        synchronized (random) {
+            pick = random.nextInt(totalWeight);
+        }
+        for (int entry = low; entry < end; entry++) {
+            pick -= getWeight(entry);
+            if (pick < 0)
+                return getMove(entry);
+        }
+        return 0;
+    }
+}
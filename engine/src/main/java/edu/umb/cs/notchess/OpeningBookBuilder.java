@@ -0,0 +1,139 @@
+package edu.umb.cs.notchess;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+
+// makes the opening book of the levels in Levels.boards for OpeningBook, run offline:
+//   OpeningBookBuilder <book file> <plies> <depth> [margin] [moves per position]
+// every move of a position is searched <depth> moves deep; the book keeps the best ones, those
+// scoring at most <margin> below the best, weighted by their score, and goes on with the positions
+// after them until <plies> moves from the start
+// the book file goes to app/src/main/assets/opening_book.nob to be shipped with the app; the one
+// there was made by "OpeningBookBuilder opening_book.nob 6 5"
+public class OpeningBookBuilder {
+    private static final int MAX_WEIGHT = 100;
+
+    private final PlayerAI playerAI = new PlayerAI();
+    private final int plies;
+    private final double margin;
+    private final int movesPerPosition;
+    private final HashSet<Long> positions = new HashSet<>();    // keys of the positions in the book
+    private final ArrayList<Entry> entries = new ArrayList<>();
+
+    private static class Entry implements Comparable<Entry> {
+        final long key;
+        final int move;
+        final int weight;
+
+        Entry(long key, int move, int weight) {
+            this.key = key;
+            this.move = move;
+            this.weight = weight;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(key, other.key);
+        }
+    }
+
+    OpeningBookBuilder(int plies, int depth, double margin, int movesPerPosition) {
+        this.plies = plies;
+        this.margin = margin;
+        this.movesPerPosition = movesPerPosition;
+
+        // the positions after each move are searched, one move less deep
+        playerAI.maxLookAhead = depth - 1;
+        playerAI.minLookAhead = Math.min(playerAI.minLookAhead, playerAI.maxLookAhead);
+        playerAI.timeLimit = Integer.MAX_VALUE;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: OpeningBookBuilder <book file> <plies> <depth> [margin] "
+                    + "[moves per position]");
+            System.exit(1);
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), args.length > 3 ? Double.parseDouble(args[3]) : 2,
+                args.length > 4 ? Integer.parseInt(args[4]) : 3);
+
+        for (int i = 0; i < Levels.boards.length; i++) {
+            long startTime = System.nanoTime();
+            int before = builder.positions.size();
+            builder.playerAI.newGame();
+            builder.add(GameState.getStartState(Levels.boards[i], true), 0);
+            System.out.printf("level %d: %d positions in %d s%n", i,
+                    builder.positions.size() - before, (System.nanoTime() - startTime) / 1000000000);
+        }
+        builder.write(args[0]);
+    }
+
+    // add the best moves of <state> to the book, then those of the positions they lead to
+    private void add(GameState state, int ply) {
+        if (ply >= plies || !positions.add(state.getKey()))
+            return;
+
+        MoveList moves = new MoveList(64);
+        PlayerAI.addMoves(state, moves);
+        double bestScore = -9e9;
+        for (int i = 0; i < moves.size; i++) {
+            moves.scores[i] = (int) Math.round(10 * getScore(state, moves.get(i)));
+            bestScore = Math.max(bestScore, moves.scores[i] / 10.0);
+        }
+
+        ArrayList<Integer> bookMoves = new ArrayList<>();
+        for (int i = 0; i < moves.size && bookMoves.size() < movesPerPosition; i++) {
+            int move = moves.pickBest(i);
+            double loss = bestScore - moves.scores[i] / 10.0;
+            if (loss > margin)
+                break;
+            int weight = margin == 0 ? MAX_WEIGHT
+                    : 1 + (int) Math.round((MAX_WEIGHT - 1) * (margin - loss) / margin);
+            entries.add(new Entry(state.getKey(), move, weight));
+            bookMoves.add(move);
+        }
+
+        for (int move : bookMoves) {
+            GameState next = state.clone(true);
+            next.makeMove(move);
+            if (next.checkWinner() == 0)
+                add(next, ply + 1);
+        }
+    }
+
+    // score of making <move> on <state> for the player making it, as PlayerAI sees it
+    private double getScore(GameState state, int move) {
+        GameState next = state.clone(true);
+        next.makeMove(move);
+        if (next.checkWinner() != 0)
+            return PlayerAI.victoryPoints;
+        MoveList replies = new MoveList(64);
+        PlayerAI.addMoves(next, replies);
+        if (replies.size == 0)
+            return PlayerAI.victoryPoints;      // the opponent cannot move
+        playerAI.getMove(next);
+        // the search scores a position without moves as -9e9, too much to scale to an int
+        return -Math.max(-PlayerAI.victoryPoints, Math.min(playerAI.score, PlayerAI.victoryPoints));
+    }
+
+    private void write(String fileName) throws IOException {
+        Collections.sort(entries);      // stable, so the moves of a position stay best first
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            output.writeInt(OpeningBook.MAGIC);
+            output.writeInt(entries.size());
+            for (Entry entry : entries) {
+                output.writeLong(entry.key);
+                output.writeInt(entry.move);
+                output.writeShort(entry.weight);
+            }
+        }
+        System.out.printf("%s: %d positions, %d moves%n", fileName, positions.size(), entries.size());
+    }
+}
@@ -0,0 +1,194 @@
+package edu.umb.cs.notchess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// counts the positions reached by every sequence of moves from a board, to check and time the
+// moves of Piece and GameState, run offline:
+//   Perft <board> <depth> [divide] [hash] [threads <n>] [attackmap]
+// <board> is the index of a level of Levels.boards or a file with a board as BoardParser's JSON,
+// such as the board column of a saved level
+// divide: count the positions after each move of the board apart
+// hash: remember the counts of positions by key, so transpositions are counted once
+// threads: the moves of the board are counted in parallel by this many threads
+// attackmap: make moves on attack maps instead of bitboards
+// positions where the game is over count without going deeper, as in PlayerAI's search
+public class Perft {
+    private static final int HASH_SIZE_MB = 64;
+
+    private final int depth;
+    private final boolean useBitboards;
+    private final long[] hashTable;     // entries of {key ^ data, data}, data: count << 8 | depth
+    private final int hashMask;
+
+    Perft(int depth, boolean useBitboards, boolean useHash) {
+        this.depth = depth;
+        this.useBitboards = useBitboards;
+        if (useHash) {
+            int entries = Integer.highestOneBit((HASH_SIZE_MB << 20) / 16);
+            hashTable = new long[2 * entries];
+            hashMask = entries - 1;
+        } else {
+            hashTable = null;
+            hashMask = 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, JSONException {
+        if (args.length < 2) {
+            System.err.println("usage: Perft <level index | board JSON file> <depth> [divide] "
+                    + "[hash] [threads <n>] [attackmap]");
+            System.exit(1);
+        }
+        boolean divide = false, useHash = false, useBitboards = true;
+        int threadCount = 1;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "divide": divide = true; break;
+                case "hash": useHash = true; break;
+                case "attackmap": useBitboards = false; break;
+                case "threads": threadCount = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        Piece[][] board = readBoard(args[0]);
+        Perft perft = new Perft(Integer.parseInt(args[1]), useBitboards, useHash);
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            perft.run(GameState.getStartState(board, useBitboards), pool, divide);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Piece[][] readBoard(String name) throws IOException, JSONException {
+        if (name.matches("\\d+"))
+            return Levels.boards[Integer.parseInt(name)];
+        try (RandomAccessFile file = new RandomAccessFile(new File(name), "r")) {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+            return BoardParser.fromJson(new JSONObject(new String(bytes, "UTF-8")));
+        }
+    }
+
+    /*============================================================================================*/
+    /* counting */
+
+    // count from <state> with the moves of the board split among the pool's threads
+    void run(GameState state, ForkJoinPool pool, boolean divide) {
+        final GameState root = state.clone(useBitboards);
+        final MoveList moves = new MoveList(64);
+        PlayerAI.addMoves(root, moves);
+        int columns = root.board[0].length;
+
+        long startTime = System.nanoTime();
+        List<Callable<Long>> tasks = new ArrayList<>(moves.size);
+        for (int i = 0; i < moves.size; i++) {
+            final int move = moves.get(i);
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    GameState next = root.clone(useBitboards);
+                    next.makeMove(move);
+                    next.checkWinner();
+                    return count(next, depth - 1, newMoveLists());
+                }
+            });
+        }
+
+        long total = 0;
+        try {
+            List<Future<Long>> counts = depth == 0 ? new ArrayList<Future<Long>>() : pool.invokeAll(tasks);
+            for (int i = 0; i < counts.size(); i++) {
+                long count = counts.get(i).get();
+                total += count;
+                if (divide)
+                    System.out.printf("%s: %d%n", moveToString(moves.get(i), columns), count);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        if (depth == 0)
+            total = 1;
+
+        long nanos = Math.max(1, System.nanoTime() - startTime);
+        System.out.printf("depth %d: %d positions in %d ms, %d positions/s%n", depth, total,
+                nanos / 1000000, total * 1000000000L / nanos);
+    }
+
+    private MoveList[] newMoveLists() {
+        MoveList[] moveLists = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < moveLists.length; i++)
+            moveLists[i] = new MoveList(64);
+        return moveLists;
+    }
+
+    // positions <depthRemaining> moves after <state>, which is back to its position on return
+    // the last moves are counted without making them (bulk counting)
+    long count(GameState state, int depthRemaining, MoveList[] moveLists) {
+        if (depthRemaining == 0 || state.isGameOver())
+            return 1;
+
+        long key = state.getKey();
+        if (hashTable != null) {
+            long count = probe(key, depthRemaining);
+            if (count >= 0)
+                return count;
+        }
+
+        MoveList moves = moveLists[depthRemaining - 1];
+        moves.size = 0;
+        PlayerAI.addMoves(state, moves);
+        long count;
+        if (depthRemaining == 1) {
+            count = moves.size;
+        } else {
+            count = 0;
+            for (int i = 0; i < moves.size; i++) {
+                state.makeMove(moves.get(i));
+                state.checkWinner();
+                count += count(state, depthRemaining - 1, moveLists);
+                state.unmakeMove();
+            }
+        }
+
+        if (hashTable != null)
+            store(key, depthRemaining, count);
+        return count;
+    }
+
+    /*============================================================================================*/
+    /* hash table, without locks as TranspositionTable */
+
+    private long probe(long key, int depthRemaining) {
+        int i = 2 * (int) ((key ^ depthRemaining) & hashMask);
+        long data = hashTable[i + 1];
+        if ((hashTable[i] ^ data) == key && (data & 0xFF) == depthRemaining)
+            return data >>> 8;
+        return -1;
+    }
+
+    private void store(long key, int depthRemaining, long count) {
+        int i = 2 * (int) ((key ^ depthRemaining) & hashMask);
+        long data = (count << 8) | depthRemaining;
+        hashTable[i] = key ^ data;
+        hashTable[i + 1] = data;
+    }
+
+    // (xStart,yStart)->(xEnd,yEnd), with the piece promoted to
+    private static String moveToString(int move, int columns) {
+        int[] blocks = Move.toArray(move, columns);
+        String text = String.format("(%d,%d)->(%d,%d)", blocks[0], blocks[1], blocks[2], blocks[3]);
+        return blocks[4] < 0 ? text : text + "=" + "QBNR".charAt(blocks[4]);
+    }
+}
@@ -0,0 +1,448 @@
+package edu.umb.cs.notchess;
+
+import java.util.ArrayList;
+
+public enum Piece {
+    W_King(1), W_Queen(2), W_Bishop(3),
+    W_Knight(4), W_Rook(5), W_Pawn(6, 0), W_Heart(7),
+    B_King(-1), B_Queen(-2), B_Bishop(-3),
+    B_Knight(-4), B_Rook(-5), B_Pawn(-6, 1), B_Heart(-7);
+
+    public final int value;
+    private final int pawnDirection;            // 0: up, 1: down, 2: left, 3: right, -1: not pawn
+
+    static final int[][] kingMoveDirections = {{-1, -1}, {0, -1}, {1, -1}, {-1, 0}, {1, 0},
+            {-1, 1}, {0, 1}, {1, 1}};
+    static final int[][] knightMoveDirections = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2},
+            {-2, -1}, {-2, 1}, {-1, 2}};
+    // pawn move directions: up, down, left, right
+    static final int[][][] pawnMoveDirections = {
+            {{0, -1}, {-1, -1}, {1, -1}},      // {move, kick1, kick2}
+            {{0, 1}, {-1, 1}, {1, 1}},
+            {{-1, 0}, {-1, -1}, {-1, 1}},
+            {{1, 0}, {1, -1}, {1, 1}}
+    };
+
+    Piece(int value) {
+        this(value, -1);
+    }
+
+    Piece(int value, int pawnDirection) {
+        this.value = value;
+        this.pawnDirection = pawnDirection;
+    }
+
+    /*============================================================================================*/
+    /* get move options */
+
+    int getPawnDirection() {
+        return pawnDirection;       // will return -1 if not pawn
+    }
+
+    public int[] getPawnForward() {
+        return pawnMoveDirections[getPawnDirection()][0].clone();
+    }
+
+    // {move, kick1, kick2} directions of this pawn, not to be modified
+    int[][] getPawnMoveDirections() {
+        return pawnMoveDirections[getPawnDirection()];
+    }
+
+    // check for promotion before adding a move
+    private void addPawnMoves(MoveList moves, GameState state, int start, int end, int flags,
+                              boolean getAttacks) {
+        if (!getAttacks && state.geometry.pawnSteps[getPawnDirection()][end] < 0) {
+            for (int promote = 0; promote <= 3; promote++)  // add move for each the promotion option
+                moves.add(Move.pack(start, end, promote, flags));
+        } else {    // no promotion if just want to get attacks
+            moves.add(Move.pack(start, end, -1, flags));
+        }
+    }
+
+    // add a move to a block that is empty or has <target>
+    private void addMove(MoveList moves, int start, int end, Piece target) {
+        int flags = target != null && !isFriendlyWith(target) ? Move.CAPTURE : 0;
+        moves.add(Move.pack(start, end, -1, flags));
+    }
+
+    // king steps and knight jumps
+    private void addStepMoves(MoveList moves, GameState state, int start, int[] ends,
+                              boolean getAttacks) {
+        BoardGeometry geometry = state.geometry;
+        for (int end : ends) {
+            Piece target = state.board[geometry.yOf[end]][geometry.xOf[end]];
+            if (getAttacks || target == null || !isFriendlyWith(target))
+                addMove(moves, start, end, target);
+        }
+    }
+
+    // slide moves along rays of BoardGeometry.directions[firstDir] to [lastDir]
+    private void addSlideMoves(MoveList moves, GameState state, int start,
+                               int firstDir, int lastDir, boolean getAttacks) {
+        BoardGeometry geometry = state.geometry;
+        for (int dir = firstDir; dir <= lastDir; dir++) {
+            for (int end : geometry.rays[dir][start]) {
+                Piece target = state.board[geometry.yOf[end]][geometry.xOf[end]];
+                if (target == null) {
+                    addMove(moves, start, end, null);
+                } else {
+                    if (getAttacks || !isFriendlyWith(target))
+                        addMove(moves, start, end, target);
+                    break;  // blocked by a piece
+                }
+            }
+        }
+    }
+
+    // make sure both are king and rook on the same axis, and no pieces in between
+    private boolean isCastlingEligible(GameState state,
+                                       int xKing, int yKing, int xRook, int yRook) {
+        final int CASTLING_DIST = 2;
+        // if both king and rook have not moved ...
+        if (!state.isMoved[yKing][xKing] && !state.isMoved[yRook][xRook]) {
+            int xDist = Math.abs(xRook - xKing);
+            int yDist = Math.abs(yRook - yKing);
+            // ... and their distance is far enough ...
+            if (xDist >= CASTLING_DIST || yDist >= CASTLING_DIST) {
+                int xKingEnd = xKing + Math.max(-2, Math.min(xRook - xKing, 2));
+                int yKingEnd = yKing + Math.max(-2, Math.min(yRook - yKing, 2));
+
+                // ... and king is not in check and king's path not under attack
+                if (yDist == 0) {   // on x-axis
+                    int lowerX = Math.min(xKing, xKingEnd);
+                    int upperX = Math.max(xKing, xKingEnd);
+                    for (int x = lowerX; x <= upperX; x++)   // inclusive both end
+                        if (state.isUnderAttackBy(-state.playerToMove, x, yKing)) return false;
+                } else {            // on y-axis
+                    int lowerY = Math.min(yKing, yKingEnd);
+                    int upperY = Math.max(yKing, yKingEnd);
+                    for (int y = lowerY; y <= upperY; y++)
+                        if (state.isUnderAttackBy(-state.playerToMove, xKing, y)) return false;
+                }
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // check on the same axis of 4 directions
+    private void addCastlingMoves(MoveList moves, GameState state, int xStart, int yStart) {
+        BoardGeometry geometry = state.geometry;
+        int start = yStart * geometry.columns + xStart;
+        for (int dir = BoardGeometry.ROOK_DIRECTIONS; dir < BoardGeometry.ROOK_DIRECTIONS + 4; dir++) {
+            for (int end : geometry.rays[dir][start]) {
+                int xEnd = geometry.xOf[end];
+                int yEnd = geometry.yOf[end];
+                Piece target = state.board[yEnd][xEnd];
+                if (target != null) {
+                    if (target.isRook() && isCastlingEligible(state, xStart, yStart, xEnd, yEnd))
+                        moves.add(Move.pack(start, end, -1,
+                                isFriendlyWith(target) ? Move.CASTLING : Move.CAPTURE));
+                    break;  // break b/c there should be no pieces between king and rook when castling
+                }
+            }
+        }
+    }
+
+    // whether a pawn moving <forward> can kick to (xEnd, yEnd) by en passant
+    private boolean isPassingKick(GameState state, int xEnd, int yEnd, int[] forward) {
+        if (state.lastMove == null)
+            return false;
+
+        final int TWO_STEPS = 2;
+        int xSide = xEnd - forward[0];
+        int ySide = yEnd - forward[1];
+        int xLastStart = state.lastMove[0];
+        int yLastStart = state.lastMove[1];
+        int xLastEnd = state.lastMove[2];
+        int yLastEnd = state.lastMove[3];
+
+        // if opponent's last move moved a piece to this pawn's side ...
+        if (xSide == xLastEnd && ySide == yLastEnd) {
+            Piece lastMovedPiece = state.board[yLastEnd][xLastEnd];
+            // ... and that was a pawn ...
+            if (lastMovedPiece.isPawn()) {
+                int lastMoveSteps = Math.abs(xLastEnd - xLastStart) + Math.abs(yLastEnd - yLastStart);
+                // ... and that pawn moved two steps ...
+                if (lastMoveSteps == TWO_STEPS) {
+                    // opposite direction of last move
+                    int xLastOpDir = (xLastStart - xLastEnd) / TWO_STEPS;
+                    int yLastOpDir = (yLastStart - yLastEnd) / TWO_STEPS;
+                    // ... and that pawn moves in a opposite direction of this pawn ...
+                    // ... then this pawn can capture that passing pawn
+                    return xLastOpDir == forward[0] && yLastOpDir == forward[1];
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addPassingMoves(MoveList moves, GameState state, int start) {
+        BoardGeometry geometry = state.geometry;
+        int[] forward = getPawnMoveDirections()[0];
+        for (int end : geometry.pawnKicks[getPawnDirection()][start]) {   // kick1, kick2
+            if (end >= 0 && isPassingKick(state, geometry.xOf[end], geometry.yOf[end], forward))
+                addPawnMoves(moves, state, start, end, Move.CAPTURE | Move.EN_PASSANT, false);
+        }
+    }
+
+    // same as addMoves(), but finds the blocks to move to with the state's bitboards
+    private void addBitboardMoves(GameState state, int xStart, int yStart, boolean getAttacks,
+                                  MoveList moves) {
+        int columns = state.bitboards.columns;
+        int start = yStart * columns + xStart;
+        Bitboard targets = state.bitboards.getTargets(this, xStart, yStart,
+                state.isMoved[yStart][xStart], getAttacks);
+
+        for (int i = targets.nextSetBit(0); i >= 0; i = targets.nextSetBit(i + 1)) {
+            int xEnd = i % columns;
+            int yEnd = i / columns;
+            Piece target = state.board[yEnd][xEnd];
+            if (isPawn()) {
+                int flags = target != null && !isFriendlyWith(target) ? Move.CAPTURE
+                        : Math.abs(xEnd - xStart) + Math.abs(yEnd - yStart) == 2 ? Move.TWO_STEPS : 0;
+                addPawnMoves(moves, state, start, i, flags, getAttacks);
+            } else {
+                addMove(moves, start, i, target);
+            }
+        }
+
+        if (!getAttacks && isKing())            // special move: castling
+            addCastlingMoves(moves, state, xStart, yStart);
+        else if (!getAttacks && isPawn())       // special move: en passant, its kick is an attack already
+            addPassingMoves(moves, state, start);
+    }
+
+    // king steps and knight jumps that kick an opponent's piece
+    private void addStepCaptures(MoveList moves, GameState state, int start, int[] ends) {
+        BoardGeometry geometry = state.geometry;
+        for (int end : ends) {
+            Piece target = state.board[geometry.yOf[end]][geometry.xOf[end]];
+            if (target != null && !isFriendlyWith(target))
+                moves.add(Move.pack(start, end, -1, Move.CAPTURE));
+        }
+    }
+
+    // slides along rays of BoardGeometry.directions[firstDir] to [lastDir] that kick an opponent's piece
+    private void addSlideCaptures(MoveList moves, GameState state, int start,
+                                  int firstDir, int lastDir) {
+        BoardGeometry geometry = state.geometry;
+        for (int dir = firstDir; dir <= lastDir; dir++) {
+            for (int end : geometry.rays[dir][start]) {
+                Piece target = state.board[geometry.yOf[end]][geometry.xOf[end]];
+                if (target != null) {
+                    if (!isFriendlyWith(target))
+                        moves.add(Move.pack(start, end, -1, Move.CAPTURE));
+                    break;  // blocked by a piece
+                }
+            }
+        }
+    }
+
+    // add only the moves of this piece at (xStart, yStart) that kick an opponent's piece, the
+    // same as those of addMoves() with Move.CAPTURE except castling onto an opponent's rook
+    public void addCaptures(GameState state, int xStart, int yStart, MoveList moves) {
+        BoardGeometry geometry = state.geometry;
+        int start = yStart * geometry.columns + xStart;
+
+        if (state.bitboards != null) {
+            Bitboard targets = state.bitboards.getCaptureTargets(this, xStart, yStart);
+            for (int i = targets.nextSetBit(0); i >= 0; i = targets.nextSetBit(i + 1)) {
+                if (isPawn())
+                    addPawnMoves(moves, state, start, i, Move.CAPTURE, false);
+                else
+                    moves.add(Move.pack(start, i, -1, Move.CAPTURE));
+            }
+            if (isPawn())
+                addPassingMoves(moves, state, start);
+            return;
+        }
+
+        switch (this) {
+            case W_King:
+            case B_King:
+                addStepCaptures(moves, state, start, geometry.kingSteps[start]);
+                break;
+
+            case W_Queen:
+            case B_Queen:
+                addSlideCaptures(moves, state, start, BoardGeometry.BISHOP_DIRECTIONS,
+                        BoardGeometry.ROOK_DIRECTIONS + 3);
+                break;
+
+            case W_Bishop:
+            case B_Bishop:
+                addSlideCaptures(moves, state, start, BoardGeometry.BISHOP_DIRECTIONS,
+                        BoardGeometry.BISHOP_DIRECTIONS + 3);
+                break;
+
+            case W_Knight:
+            case B_Knight:
+                addStepCaptures(moves, state, start, geometry.knightJumps[start]);
+                break;
+
+            case W_Rook:
+            case B_Rook:
+                addSlideCaptures(moves, state, start, BoardGeometry.ROOK_DIRECTIONS,
+                        BoardGeometry.ROOK_DIRECTIONS + 3);
+                break;
+
+            case W_Pawn:
+            case B_Pawn:
+                for (int kick : geometry.pawnKicks[getPawnDirection()][start]) {   // kick1, kick2
+                    if (kick >= 0) {
+                        Piece target = state.board[geometry.yOf[kick]][geometry.xOf[kick]];
+                        if (target != null && !isFriendlyWith(target))
+                            addPawnMoves(moves, state, start, kick, Move.CAPTURE, false);
+                    }
+                }
+                addPassingMoves(moves, state, start);
+        }
+    }
+
+    // returns an array list of int array: {xStart, yStart, xEnd, yEnd, promote}
+    // allocates a new list, the AI uses addMoves() instead
+    public ArrayList<int[]> getMoveOptions(GameState state, int xStart, int yStart,
+                                           boolean getAttacks) {
+        MoveList moveList = new MoveList(16);
+        addMoves(state, xStart, yStart, getAttacks, moveList);
+
+        int columns = state.board[0].length;
+        ArrayList<int[]> moves = new ArrayList<>(moveList.size);
+        for (int i = 0; i < moveList.size; i++)
+            moves.add(Move.toArray(moveList.get(i), columns));
+        return moves;
+    }
+
+    // add the moves of this piece at (xStart, yStart) to <moves>, packed by Move
+    public void addMoves(GameState state, int xStart, int yStart, boolean getAttacks,
+                         MoveList moves) {
+        if (state.bitboards != null) {
+            addBitboardMoves(state, xStart, yStart, getAttacks, moves);
+            return;
+        }
+
+        BoardGeometry geometry = state.geometry;
+        int start = yStart * geometry.columns + xStart;
+
+        switch (this) {
+            case W_King:
+            case B_King:
+                // one step move options
+                addStepMoves(moves, state, start, geometry.kingSteps[start], getAttacks);
+
+                // special move: castling
+                if (!getAttacks)
+                    addCastlingMoves(moves, state, xStart, yStart);
+                break;
+
+            case W_Queen:
+            case B_Queen:
+                addSlideMoves(moves, state, start, BoardGeometry.BISHOP_DIRECTIONS,
+                        BoardGeometry.ROOK_DIRECTIONS + 3, getAttacks);
+                break;
+
+            case W_Bishop:
+            case B_Bishop:
+                addSlideMoves(moves, state, start, BoardGeometry.BISHOP_DIRECTIONS,
+                        BoardGeometry.BISHOP_DIRECTIONS + 3, getAttacks);
+                break;
+
+            case W_Knight:
+            case B_Knight:
+                addStepMoves(moves, state, start, geometry.knightJumps[start], getAttacks);
+                break;
+
+            case W_Rook:
+            case B_Rook:
+                addSlideMoves(moves, state, start, BoardGeometry.ROOK_DIRECTIONS,
+                        BoardGeometry.ROOK_DIRECTIONS + 3, getAttacks);
+                break;
+
+            case W_Pawn:
+            case B_Pawn:
+                int direction = getPawnDirection();
+                int end = start;
+                if (!getAttacks) {
+                    // move forward, a pawn can move two steps in the beginning
+                    int steps = state.isMoved[yStart][xStart] ? 1 : 2;
+                    for (int i = 0; i < steps; i++) {
+                        end = geometry.pawnSteps[direction][end];
+                        if (end < 0 || state.board[geometry.yOf[end]][geometry.xOf[end]] != null)
+                            break;
+                        addPawnMoves(moves, state, start, end, i == 0 ? 0 : Move.TWO_STEPS, false);
+                    }
+                }
+
+                for (int kick : geometry.pawnKicks[direction][start]) {   // kick1, kick2
+                    if (kick >= 0) {
+                        Piece target = state.board[geometry.yOf[kick]][geometry.xOf[kick]];
+                        if (getAttacks || (target != null && !isFriendlyWith(target)))
+                            addPawnMoves(moves, state, start, kick,
+                                    target != null && !isFriendlyWith(target) ? Move.CAPTURE : 0,
+                                    getAttacks);
+                    }
+                }
+
+                // special move: en passant (in passing), its kick is an attack already
+                if (!getAttacks)
+                    addPassingMoves(moves, state, start);
+        }
+    }
+
+    /*============================================================================================*/
+    /* utils */
+
+    public boolean isFriendlyWith(Piece target) {
+        return (value > 0 && target.value > 0) || (value < 0 && target.value < 0);
+    }
+
+    private boolean isWithinBoard(Piece[][] board, int x, int y) {
+        return x >= 0 && x < board[0].length && y >= 0 && y < board.length;
+    }
+
+    public boolean isBelongingTo(int player) {
+        return (value > 0 && player == 1) || (value < 0 && player == -1);
+    }
+
+    // does a pawn reach the edge?
+    public boolean isPromotion(Piece[][] board, int xEnd, int yEnd) {
+        if (this.isPawn()) {
+            int[] forward = getPawnMoveDirections()[0];
+            int frontX = xEnd + forward[0];
+            int frontY = yEnd + forward[1];
+            return !isWithinBoard(board, frontX, frontY);
+        }
+        return false;
+    }
+
+    public boolean isKing() {
+        return this == W_King || this == B_King;
+    }
+
+    public boolean isQueen() {
+        return this == W_Queen || this == B_Queen;
+    }
+
+    public boolean isBishop() {
+        return this == W_Bishop || this == B_Bishop;
+    }
+
+    public boolean isKnight() {
+        return this == W_Knight || this == B_Knight;
+    }
+
+    public boolean isRook() {
+        return this == W_Rook || this == B_Rook;
+    }
+
+    public boolean isPawn() {
+        return this == W_Pawn || this == B_Pawn;
+    }
+
+    public boolean isHeart() {
+        return this == W_Heart || this == B_Heart;
+    }
+}
@@ -0,0 +1,521 @@
+package edu.umb.cs.notchess;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Logger;
+
+// the computer player; each instance owns its settings, search threads and caches, so several
+// can search at the same time, e.g. for different games
+public class PlayerAI {
+    // for getScore() calculation
+    static final double victoryPoints = 1000;
+    static final double victoryScoreThresh = victoryPoints - 1;
+
+    // search progress, on Android java.util.logging goes to logcat
+    private static final Logger log = Logger.getLogger("AI");
+
+    // depth range of iterative deepening
+    int minLookAhead = 2;
+    int maxLookAhead = 20;
+    double aspirationWindow = 4;     // half width of the first window around the last score
+    int maxQuiescenceDepth = 8;      // captures searched after the last move of lookAhead()
+    double deltaMargin = 2;          // captures that cannot raise the score this close to alpha are skipped
+
+    // selective search, a reduction of 0 turns it off
+    int nullMoveReduction = 2;       // plies less searched after passing the turn
+    int lateMoveReduction = 1;       // plies less searched for late quiet moves ...
+    int lateMoveIndex = 3;           // ... which are those after this many moves
+    long nodeCount;                  // positions searched by the last getMove()
+    double score;                    // of the move found by the last search, for the player to move
+
+    // chess board dimension
+    int columns;
+    int rows;
+
+    int mPlayer;             // computer player is White(1) or Black(0)
+
+    // time control: searches look at the clock every few thousand positions and stop at the hard
+    // limit; a new depth is only started before the soft limit, which grows while the favored
+    // move or its score is unstable
+    int timeLimit = 3000;    // Think time limit of computer player (milliseconds), without a game clock
+    long clockTime;          // time for all moves of a game (milliseconds), 0 for no game clock
+    long clockIncrement;     // time added to the game clock after each move (milliseconds)
+    long clockOverhead = 50; // time kept back on the game clock for making the move (milliseconds)
+    int minMovesToGo = 10;   // the game clock is never shared by fewer moves than this
+    long nodeLimit;          // positions searched per move, 0 for no limit; stops searches like the hard limit
+    private long clockRemaining;
+    private int movesMade;           // by getMove() since newGame()
+    private int initialPieceCount;   // pieces on the board at the first move, for the game phase
+
+    volatile long startTime;         // System.nanoTime() when the search started
+    private long softLimit;          // milliseconds
+    private volatile long hardLimit;
+    private volatile boolean isTimeUp;
+
+    // scores of searched positions, kept between moves
+    int hashSizeMB = 16;     // memory used by the transposition table
+    TranspositionTable table;
+    private int tableSizeMB;
+
+    // endgame tables made by TablebaseGenerator, positions in them are not searched; null for none
+    Tablebase tablebase;
+    // moves searched in advance by OpeningBookBuilder, played without searching; null for none
+    OpeningBook openingBook;
+
+    // threads searching, if above 1 either:
+    // Lazy SMP: helper threads search the whole tree as well, at staggered depths, and help the
+    // calling thread only through the entries they leave in the transposition table
+    // root split: the root moves after the first are searched in parallel
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    boolean useLazySmp = true;
+    private ForkJoinPool pool;
+    private SearchWorker mainWorker;     // searches on the thread calling getMove()
+    private SearchWorker[] helpers;      // search on the pool's threads ...
+    private final ConcurrentLinkedQueue<SearchWorker> idleHelpers = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean isAborted;  // every worker has to stop
+    private volatile boolean isCancelled;    // the whole search has to stop, e.g. a wrong ponder
+
+    // pondering: after its move the expected reply is made and searched on ponderThread while the
+    // opponent thinks, for at most ponderTimeLimit; if the opponent plays it, getMove() turns the
+    // ponder search into the real one, otherwise it is cancelled and its entries stay in the table
+    // the UI thread may stop pondering while getMove() takes it over, so both go through ponderLock
+    int ponderTimeLimit = 10000;             // milliseconds, so a long think does not keep every thread busy
+    private final Object ponderLock = new Object();
+    private Thread ponderThread;             // guarded by ponderLock, null once stopped or taken over
+    private long ponderKey;                  // key of the position searched by ponderThread, guarded by ponderLock
+    private volatile boolean isPondering;    // the ponder search has no time limit of a move yet
+    private volatile int[] ponderResult;
+
+    // root moves searched in parallel share the best score so far as their alpha, and all stop
+    // once one of them scores at least beta; guarded by the lock of this
+    private volatile double parallelAlpha;
+    private double parallelBestScore;
+    private int parallelBestMove;
+
+    /*============================================================================================*/
+    /* helper functions */
+
+    // (xStart,yStart)->(xEnd,yEnd) for logging
+    private String moveToString(int move) {
+        int[] blocks = Move.toArray(move, columns);
+        return String.format("(%d,%d)->(%d,%d)", blocks[0], blocks[1], blocks[2], blocks[3]);
+    }
+
+    // milliseconds since the search started
+    private long elapsed() {
+        return (System.nanoTime() - startTime) / 1000000;
+    }
+
+    // Check whether the hard time limit or the node limit has been reached, called by workers
+    // every few thousand positions; pondering has only ponderTimeLimit
+    void checkTime() {
+        if (isPondering ? elapsed() >= ponderTimeLimit
+                : elapsed() >= hardLimit || nodeLimit > 0 && countNodes() >= nodeLimit)
+            isTimeUp = true;
+    }
+
+    // whether searches have to stop: time is up, a parallel root search is cut off, the Lazy
+    // SMP helpers are no longer needed, or the opponent did not play the pondered move
+    boolean isStopped() {
+        return isAborted || isCancelled || isTimeUp;
+    }
+
+    private static int countPieces(GameState state) {
+        int count = 0;
+        for (int i = 0; i < state.wPieceCount.length; i++)
+            count += state.wPieceCount[i] + state.bPieceCount[i];
+        return count;
+    }
+
+    // Set the soft and hard limit of a search of <state>
+    // with a game clock, the remaining time is shared by the moves the game is expected to last,
+    // fewer as pieces get kicked and moves get made
+    private void allocateTime(GameState state) {
+        if (clockTime <= 0) {
+            hardLimit = timeLimit;
+            softLimit = timeLimit / 2;
+            return;
+        }
+
+        double phase = Math.min(1, (double) countPieces(state) / Math.max(1, initialPieceCount));
+        int movesToGo = Math.max(minMovesToGo, (int) (20 + 20 * phase) - movesMade / 2);
+        long remaining = Math.max(0, clockRemaining - clockOverhead);
+        softLimit = remaining / movesToGo + clockIncrement * 3 / 4;
+        hardLimit = Math.min(softLimit * 4, remaining / 3 + clockIncrement);
+        softLimit = Math.min(softLimit, hardLimit);
+    }
+
+    // whether there is enough time left for another depth; more time is given while the favored
+    // move keeps changing (<bestMoveChanges>, decaying) or its score drops (<scoreDrop>)
+    private boolean hasTimeForNextDepth(double bestMoveChanges, double scoreDrop) {
+        if (isPondering)
+            return elapsed() < ponderTimeLimit;
+        double instability = (0.7 + bestMoveChanges) * (1 + Math.min(Math.max(scoreDrop, 0), 8) / 16);
+        if (nodeLimit > 0 && nodeCount >= nodeLimit / 2 * instability)
+            return false;   // half the node limit is the soft limit
+        return elapsed() < Math.min(hardLimit, softLimit * instability);
+    }
+
+    /*============================================================================================*/
+    /* algorithm to get a move */
+
+    // Search the root moves like SearchWorker.searchRoot(), the first one by mainWorker to get a
+    // bound, then the others by the pool's threads at the same time
+    private double searchRootParallel(MoveList moves, int depth, double alpha, double beta) {
+        int firstMove = moves.get(0);
+        mainWorker.startRoot();
+        long nodesBefore = mainWorker.nodeCount;
+        double firstScore = mainWorker.searchRootMove(firstMove, depth, alpha, beta, true);
+        mainWorker.rootBestMove = firstMove;
+        if (isStopped())
+            return -9e9;    // no move was searched in full
+        mainWorker.setRootResult(0, firstScore, mainWorker.nodeCount - nodesBefore);
+        mainWorker.setRootPv(firstMove, mainWorker);
+        if (firstScore >= beta || moves.size == 1)
+            return firstScore;
+
+        parallelBestScore = firstScore;
+        parallelBestMove = firstMove;
+        parallelAlpha = Math.max(alpha, firstScore);
+        isAborted = false;
+
+        ArrayList<Callable<Void>> tasks = new ArrayList<>(moves.size - 1);
+        for (int i = 1; i < moves.size; i++) {
+            final int index = i;
+            tasks.add(() -> {
+                searchParallelRootMove(moves, index, depth, beta);
+                return null;
+            });
+        }
+        pool.invokeAll(tasks);      // returns when every task has finished or stopped
+        isAborted = false;
+
+        mainWorker.rootBestMove = parallelBestMove;
+        return parallelBestScore;
+    }
+
+    // one task of searchRootParallel(), searching the <index>-th of <moves>
+    private void searchParallelRootMove(MoveList moves, int index, int depth, double beta) {
+        if (isStopped())
+            return;
+        int move = moves.get(index);
+        SearchWorker worker = idleHelpers.poll();
+        if (worker == null) {       // the pool has started a thread to make up for a blocked one
+            worker = new SearchWorker(this);
+            worker.reset(mainWorker.state.clone(mainWorker.state.bitboards != null));
+        }
+
+        double alpha = parallelAlpha;
+        long nodesBefore = worker.nodeCount;
+        double score = worker.searchRootMove(move, depth, alpha, beta, false);
+        if (!isStopped())
+            mainWorker.setRootResult(index, score, worker.nodeCount - nodesBefore);
+
+        synchronized (this) {
+            if (isStopped() || score <= alpha || score <= parallelBestScore) {
+                idleHelpers.offer(worker);
+                return;
+            }
+            parallelBestScore = score;
+            parallelBestMove = move;
+            mainWorker.setRootPv(move, worker);     // before the worker searches another move
+            idleHelpers.offer(worker);
+            if (score > parallelAlpha)
+                parallelAlpha = score;
+            if (score >= beta)
+                isAborted = true;   // the other moves do not matter any more
+        }
+    }
+
+    // positions searched by all workers since getMove() was called
+    private long countNodes() {
+        long count = mainWorker.nodeCount;
+        if (helpers != null)
+            for (SearchWorker helper : helpers)
+                count += helper.nodeCount;
+        return count;
+    }
+
+    // Compute the next move to be played
+    // <state> is used as the search's working copy, it is back to its original position on return
+    // one instance searches one position at a time, use more instances to search more at once
+    int[] getMove(final GameState state) {
+        if (movesMade == 0) {
+            clockRemaining = clockTime;
+            initialPieceCount = countPieces(state);
+        }
+
+        int[] move;
+        int bookMove = getBookMove(state);
+        Thread ponderHit;
+        if (bookMove != 0) {
+            stopPondering();
+            startTime = System.nanoTime();
+            move = Move.toArray(bookMove, state.board[0].length);
+            log.info(String.format("-- PlayerAI: Book move (%d,%d)->(%d,%d)",
+                    move[0], move[1], move[2], move[3]));
+        } else if ((ponderHit = takePonderSearch(state.getKey())) != null) {
+            log.info("-- PlayerAI: Ponder hit");
+            join(ponderHit);
+            move = ponderResult;
+        } else {
+            stopPondering();
+            move = search(state);
+        }
+
+        movesMade++;
+        if (clockTime > 0)
+            clockRemaining += clockIncrement - elapsed();
+        return move;
+    }
+
+    // Forget the game played so far: stop pondering, clear the caches and restart the game clock
+    void newGame() {
+        stopPondering();
+        if (table != null)
+            table.clear();
+        movesMade = 0;
+    }
+
+    /*============================================================================================*/
+    /* pondering */
+
+    // Start searching the position after the reply expected to <state>, the position after the
+    // move returned by getMove(); <state> is not used after this returns
+    void startPondering(GameState state) {
+        synchronized (ponderLock) {
+            stopPondering();
+            if (table == null || state.checkWinner() != 0)
+                return;
+            int reply = getExpectedReply(state);
+            if (reply == 0)
+                return;
+
+            final GameState ponderState = state.clone(state.bitboards != null);
+            ponderState.makeMove(reply);
+            if (ponderState.checkWinner() != 0)
+                return;
+
+            ponderKey = ponderState.getKey();
+            ponderResult = null;
+            isPondering = true;
+            ponderThread = new Thread(() -> ponderResult = search(ponderState), "PlayerAI ponder");
+            ponderThread.setDaemon(true);
+            ponderThread.start();
+        }
+    }
+
+    // Stop the ponder search, if any, and wait for it; a search getMove() has taken over is not
+    // stopped, and other callers wait until the cancelled one has ended
+    void stopPondering() {
+        synchronized (ponderLock) {
+            if (ponderThread == null)
+                return;
+            isCancelled = true;
+            join(ponderThread);
+            ponderThread = null;
+            isPondering = false;
+            isCancelled = false;
+        }
+    }
+
+    // on a ponder hit, hand the ponder search of the position with <key> over to getMove(): it gets
+    // the time limit of a move from now, and stopPondering() no longer sees it
+    // returns its thread to wait for, null if the position is not the one pondered
+    private Thread takePonderSearch(long key) {
+        synchronized (ponderLock) {
+            Thread thread = ponderThread;
+            if (thread == null || ponderKey != key)
+                return null;
+            startTime = System.nanoTime();
+            isPondering = false;
+            ponderThread = null;
+            return thread;
+        }
+    }
+
+    private static void join(Thread thread) {
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    // the best move to <state> according to the transposition table, 0 if there is none
+    private int getExpectedReply(GameState state) {
+        int reply = TranspositionTable.getMove(table.probe(state.getKey()));
+        return isLegalMove(state, reply) ? reply : 0;
+    }
+
+    // the move of <state> in the opening book, 0 if there is none
+    private int getBookMove(GameState state) {
+        if (openingBook == null)
+            return 0;
+        int move = openingBook.getMove(state.getKey());
+        return isLegalMove(state, move) ? move : 0;
+    }
+
+    // whether <move> is one of <state>, not one found under the same key for another position
+    static boolean isLegalMove(GameState state, int move) {
+        if (move == 0)
+            return false;
+        MoveList moves = new MoveList(64);
+        addMoves(state, moves);
+        for (int i = 0; i < moves.size; i++)
+            if (moves.get(i) == move)
+                return true;
+        return false;
+    }
+
+    // add every move of the player to move to <moves>
+    static void addMoves(GameState state, MoveList moves) {
+        for (int y = 0; y < state.board.length; y++) {
+            for (int x = 0; x < state.board[0].length; x++) {
+                Piece piece = state.board[y][x];
+                if (piece != null && piece.isBelongingTo(state.playerToMove))
+                    piece.addMoves(state, x, y, false, moves);
+            }
+        }
+    }
+
+    /*============================================================================================*/
+    /* search */
+
+    // keep updating <favoredMove> until computation finished or time limit reached
+    private int[] search(final GameState state) {
+        startTime = System.nanoTime();                          // Remember computation start time
+        isTimeUp = false;
+        allocateTime(state);
+
+        mPlayer = state.playerToMove;
+        columns = state.board[0].length;
+        rows = state.board.length;
+
+        if (table == null || tableSizeMB != hashSizeMB) {
+            table = new TranspositionTable(hashSizeMB);
+            tableSizeMB = hashSizeMB;
+        }
+        table.newSearch();
+
+        if (mainWorker == null)
+            mainWorker = new SearchWorker(this);
+        mainWorker.reset(state);
+
+        boolean isParallel = threadCount > 1;
+        boolean isRootSplit = isParallel && !useLazySmp;
+        if (isParallel) {
+            if (pool == null || pool.getParallelism() != threadCount) {
+                if (pool != null)
+                    pool.shutdown();
+                pool = new ForkJoinPool(threadCount);
+                helpers = new SearchWorker[threadCount];
+                for (int i = 0; i < threadCount; i++)
+                    helpers[i] = new SearchWorker(this);
+            }
+            idleHelpers.clear();
+            for (SearchWorker helper : helpers) {
+                helper.reset(state.clone(state.bitboards != null));
+                idleHelpers.offer(helper);
+            }
+        }
+
+        // Lazy SMP helpers start one or two moves deeper than the main search, so they search
+        // different depths; the main search meets their entries when it gets there
+        ArrayList<ForkJoinTask<?>> helperTasks = new ArrayList<>();
+        if (isParallel && useLazySmp) {
+            for (int i = 0; i < threadCount - 1; i++) {
+                final SearchWorker helper = helpers[i];
+                final int firstDepth = minLookAhead + 1 + i % 2;
+                helperTasks.add(pool.submit(() -> helper.searchHelper(firstDepth)));
+            }
+        }
+
+        MoveList moveList = mainWorker.getRootMoves();          // Get the list of possible moves
+        int favoredMove = moveList.get(0);                      // Choose first in case run out of time
+        double favoredMoveScore = -9e9;    // Use it to remember the favored move, for the player to move
+
+        double bestMoveChanges = 0;
+
+        // Iterative deepening loop
+        for (int lookAheadDepth = minLookAhead; lookAheadDepth <= maxLookAhead; lookAheadDepth++) {
+            // search a window around the last score first, widen it on the side the score falls out
+            double alpha = -9e9;
+            double beta = 9e9;
+            double window = aspirationWindow;
+            if (lookAheadDepth > minLookAhead && Math.abs(favoredMoveScore) < victoryScoreThresh) {
+                alpha = favoredMoveScore - window;
+                beta = favoredMoveScore + window;
+            }
+
+            double currBestScore;
+            while (true) {
+                currBestScore = isRootSplit
+                        ? searchRootParallel(moveList, lookAheadDepth, alpha, beta)
+                        : mainWorker.searchRoot(moveList, lookAheadDepth, alpha, beta);
+                if (isStopped())
+                    break;
+                mainWorker.sortRootMoves(moveList);     // the favored move first, for the next search
+
+                window *= 2;
+                if (currBestScore <= alpha && alpha > -9e9)
+                    alpha = Math.abs(currBestScore) < victoryScoreThresh ? currBestScore - window : -9e9;
+                else if (currBestScore >= beta && beta < 9e9)
+                    beta = Math.abs(currBestScore) < victoryScoreThresh ? currBestScore + window : 9e9;
+                else
+                    break;
+            }
+
+            nodeCount = countNodes();
+            double scoreDrop = 0;
+            if (!isStopped()) {
+                bestMoveChanges /= 2;
+                if (lookAheadDepth > minLookAhead) {
+                    if (mainWorker.rootBestMove != favoredMove)
+                        bestMoveChanges += 1;
+                    scoreDrop = favoredMoveScore - currBestScore;
+                }
+                favoredMove = mainWorker.rootBestMove;
+                favoredMoveScore = currBestScore;
+
+                long duration = elapsed();
+                log.info(String.format("-- PlayerAI: Depth %d finished at %d ms, favored move %s, score = %.1f, %d nodes",
+                        lookAheadDepth, duration, moveToString(favoredMove), favoredMoveScore * mPlayer, nodeCount));
+            } else if (currBestScore > alpha) {
+                // the favored move was searched in full, or another move was found better
+                favoredMove = mainWorker.rootBestMove;
+                favoredMoveScore = currBestScore;
+                log.info(String.format("-- PlayerAI: Timeout! Depth %d partly finished, favored move %s, score = %.1f",
+                        lookAheadDepth, moveToString(favoredMove), favoredMoveScore * mPlayer));
+            } else {
+                log.info("-- PlayerAI: Timeout!");
+            }
+
+            if (isStopped() || Math.abs(favoredMoveScore) >= victoryScoreThresh || moveList.size == 1
+                    || !hasTimeForNextDepth(bestMoveChanges, scoreDrop))
+                break;
+        }
+
+        // the main search is done, stop the helpers
+        if (!helperTasks.isEmpty()) {
+            isAborted = true;
+            for (ForkJoinTask<?> task : helperTasks)
+                task.join();
+            isAborted = false;
+            nodeCount = countNodes();
+        }
+
+        score = favoredMoveScore;
+        return Move.toArray(favoredMove, columns);    // {xStart, yStart, xEnd, yEnd, promote}
+    }
+}
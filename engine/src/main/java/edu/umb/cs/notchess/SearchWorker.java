@@ -0,0 +1,504 @@
+package edu.umb.cs.notchess;
+
+import java.util.Arrays;
+
+// the search of one thread for PlayerAI: a position to search with its own move lists, move
+// ordering tables and node count, so several workers can search at the same time
+// workers share their PlayerAI's settings, clock and transposition table
+class SearchWorker {
+    // move ordering: hash move, captures, killer moves, then quiet moves by history and distance
+    private static final int HASH_MOVE_ORDER = Integer.MAX_VALUE;
+    private static final int CAPTURE_ORDER = 1 << 30;
+    private static final int KILLER_ORDER = 1 << 29;
+    private static final int MAX_HISTORY = 1 << 22;    // history is halved when it gets this high
+    // value of capturing each piece by Math.abs(Piece.value), Kings and Hearts win the game
+    private static final int[] captureValues = {0, 100, 9, 3, 3, 5, 1, 100};
+    // positions searched between two looks at the clock, a power of two
+    private static final int TIME_CHECK_NODES = 1 << 10;
+
+    private final PlayerAI engine;          // the player this searches for
+    GameState state;                        // position searched, back to the root between searches
+    private BoardGeometry geometry;         // precomputed blocks and distances of the board
+    private int columns;                    // chess board dimension
+    private int rows;
+
+    // move list of each ply, reused so searching does not allocate
+    private final MoveList[] moveLists;
+    private final int[][] killerMoves;      // [ply] -> last two quiet moves causing a cutoff
+    private final int[][] history;          // [Piece.ordinal()][end block] -> cutoffs caused
+    private final Piece[] tablebasePieces = new Piece[Tablebase.MAX_PIECES];    // for Tablebase.probe()
+    private final int[] tablebaseBlocks = new int[Tablebase.MAX_PIECES];
+
+    // principal variation: pvTable[ply] holds the best line found from the node at <ply> on, of
+    // pvLength[ply] moves; the line of the root is kept in prevPv for the next search of it, whose
+    // nodes along that line search its moves first
+    private final int[][] pvTable;
+    private final int[] pvLength;
+    private final int[] prevPv;
+    private int prevPvLength;
+    private boolean followPv;               // whether the node searched next is on prevPv
+
+    long nodeCount;                         // positions searched since the last reset()
+    int rootBestMove;                       // best move of the last searchRoot()
+
+    // root moves' results of the last searchRoot(), in the order of its move list
+    private double[] rootScores = new double[0];
+    private long[] rootNodes = new long[0];
+
+    SearchWorker(PlayerAI engine) {
+        this.engine = engine;
+        moveLists = new MoveList[engine.maxLookAhead + engine.maxQuiescenceDepth + 1];
+        for (int i = 0; i < moveLists.length; i++)
+            moveLists[i] = new MoveList(64);
+        killerMoves = new int[moveLists.length][2];
+        pvTable = new int[moveLists.length][moveLists.length];
+        pvLength = new int[moveLists.length];
+        prevPv = new int[moveLists.length];
+        history = new int[Piece.values().length][BoardGeometry.MAX_SIZE * BoardGeometry.MAX_SIZE];
+    }
+
+    // get ready to search <state>, which is used in place and back to its position on return
+    void reset(GameState state) {
+        this.state = state;
+        geometry = state.geometry;
+        columns = geometry.columns;
+        rows = geometry.rows;
+
+        for (int[] killers : killerMoves) {
+            killers[0] = 0;
+            killers[1] = 0;
+        }
+        ageHistory();       // cutoffs of the last move are less likely to matter now
+        nodeCount = 0;
+        pvLength[0] = 0;
+        prevPvLength = 0;
+    }
+
+    /*============================================================================================*/
+    /* helper functions */
+
+    // get the moves <piece> on <block> needs to kick the closest King/Heart of its opponent
+    private int distFromTargets(Piece piece, int block) {
+        return state.evaluation.distFromTargets(piece, block);
+    }
+
+    /*============================================================================================*/
+    /* move generation and ordering */
+
+    // Compute list of legal moves for the state and the player moving next into <moves>
+    // and give each an ordering score
+    // <hashMove> is the best move of an earlier search of this position, 0 if there is none
+    void getMoveOptions(MoveList moves, int hashMove, int ply) {
+        moves.clear();
+        for (int xStart = 0; xStart < columns; xStart++) {
+            for (int yStart = 0; yStart < rows; yStart++) {
+                Piece pieceToMove = state.board[yStart][xStart];
+                if (pieceToMove != null && pieceToMove.isBelongingTo(state.playerToMove))
+                    pieceToMove.addMoves(state, xStart, yStart, false, moves);
+            }
+        }
+
+        scoreMoves(moves, hashMove, ply);
+    }
+
+    // Compute the moves kicking an opponent's piece into <moves>, for quiesce()
+    private void getCaptureOptions(MoveList moves, int ply) {
+        moves.clear();
+        for (int xStart = 0; xStart < columns; xStart++) {
+            for (int yStart = 0; yStart < rows; yStart++) {
+                Piece pieceToMove = state.board[yStart][xStart];
+                if (pieceToMove != null && pieceToMove.isBelongingTo(state.playerToMove))
+                    pieceToMove.addCaptures(state, xStart, yStart, moves);
+            }
+        }
+
+        scoreMoves(moves, 0, ply);
+    }
+
+    // give each move an ordering score, the search picks them from the highest score down
+    private void scoreMoves(MoveList moves, int hashMove, int ply) {
+        int[] killers = killerMoves[ply];
+        for (int i = 0; i < moves.size; i++) {
+            int move = moves.moves[i];
+            int start = Move.getStart(move);
+            int end = Move.getEnd(move);
+            Piece piece = state.board[geometry.yOf[start]][geometry.xOf[start]];
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_ORDER;
+            } else if (Move.isCapture(move)) {      // most valuable victim, least valuable attacker
+                Piece target = state.board[geometry.yOf[end]][geometry.xOf[end]];
+                int victim = target == null ? captureValues[6] : captureValues[Math.abs(target.value)];
+                score = CAPTURE_ORDER + victim * 128 - captureValues[Math.abs(piece.value)];
+            } else if (move == killers[0] || move == killers[1]) {
+                score = KILLER_ORDER + (move == killers[0] ? 1 : 0);
+            } else {    // moves that end up closer to the targets first
+                int dist = Math.min(distFromTargets(piece, end), 63);
+                score = (history[piece.ordinal()][end] << 6) - dist;
+            }
+            moves.scores[i] = score;
+        }
+    }
+
+    // remember a quiet move causing a cutoff, so it gets searched early in sibling positions
+    private void updateOrdering(int move, int depthRemaining, int ply) {
+        int[] killers = killerMoves[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+
+        int start = Move.getStart(move);
+        Piece piece = state.board[geometry.yOf[start]][geometry.xOf[start]];
+        int[] pieceHistory = history[piece.ordinal()];
+        int end = Move.getEnd(move);
+        pieceHistory[end] += depthRemaining * depthRemaining;
+        if (pieceHistory[end] >= MAX_HISTORY)
+            ageHistory();
+    }
+
+    // halve the history, so new cutoffs count more than old ones
+    private void ageHistory() {
+        for (int[] pieceHistory : history)
+            for (int i = 0; i < pieceHistory.length; i++)
+                pieceHistory[i] >>= 1;
+    }
+
+    /*============================================================================================*/
+    /* search */
+
+    // Execute a move on the state in place; take it back with GameState.unmakeMove()
+    void makeMove(int move) {
+        int player = state.playerToMove;
+        state.makeMove(move);
+
+        if (state.checkWinner() != 0)
+            state.points = player * PlayerAI.victoryPoints;
+    }
+
+    // Return the evaluation score of the state; higher score indicates a better situation for Player MAX(1).
+    double getScore() {
+        double score = state.points;
+
+        if (state.isGameOver())
+            return score;
+
+        score += state.evaluation.getSum();     // kept up to date by the moves made
+        return Math.max(-PlayerAI.victoryScoreThresh+1, Math.min(score, PlayerAI.victoryScoreThresh-1));
+    }
+
+    // the clock is read once every TIME_CHECK_NODES positions, not at every one
+    private void countNode() {
+        if ((++nodeCount & (TIME_CHECK_NODES - 1)) == 0)
+            engine.checkTime();
+    }
+
+    // Use the Negamax algorithm with alpha-beta pruning to look ahead <depthRemaining> moves and
+    // return the resulting score for the player to move; scores outside (alpha, beta) are bounds
+    // Moves after the first are searched with a null window, proving them not better than alpha,
+    // and only searched again with the full window if that fails (principal variation search)
+    // <ply> is the number of moves made since the root, for picking a move list
+    // <allowNullMove> is false right after a null move, so two passes do not follow each other
+    double lookAhead(int depthRemaining, double alpha, double beta, int ply, boolean allowNullMove) {
+        countNode();
+        pvLength[ply] = 0;
+        boolean isOnPv = followPv && ply < prevPvLength;    // the moves so far are those of prevPv
+        followPv = false;
+        if (state.isGameOver())
+            return getScore() * state.playerToMove;
+
+        // endgames in the tables are won, lost or drawn already, the root still needs its moves
+        if (engine.tablebase != null && ply > 0) {
+            int value = engine.tablebase.probe(state, tablebasePieces, tablebaseBlocks);
+            if (value != Tablebase.UNKNOWN)
+                return Tablebase.getScore(value);
+        }
+
+        if (depthRemaining == 0)
+            return quiesce(alpha, beta, ply, engine.maxQuiescenceDepth);
+
+        if (engine.isStopped())
+            return 9e9;     // make ancestor ignore this score
+
+        // an earlier search of this position may already have the score
+        TranspositionTable table = engine.table;
+        long key = state.getKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.getMove(entry);
+            if (TranspositionTable.getDepth(entry) >= depthRemaining) {
+                double score = TranspositionTable.getScore(entry);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha))
+                    return score;
+            }
+        }
+
+        // null move pruning: if passing the turn still scores at least beta, some move surely does
+        // too, unless every move makes things worse (zugzwang), which a search without passing
+        // verifies; only done with a null window, where a score at least beta is all that matters
+        boolean isNullWindow = beta - alpha == 1;
+        int nullDepth = depthRemaining - 1 - engine.nullMoveReduction;
+        if (allowNullMove && isNullWindow && engine.nullMoveReduction > 0 && nullDepth > 0
+                && getScore() * state.playerToMove >= beta) {
+            state.makeNullMove();
+            double score = -lookAhead(nullDepth, -beta, -beta + 1, ply + 1, false);
+            state.unmakeNullMove();
+            if (score >= beta) {
+                score = lookAhead(nullDepth, beta - 1, beta, ply, false);
+                if (score >= beta)
+                    return score;
+            }
+        }
+
+        double originalAlpha = alpha;
+        double bestScore = -9e9;
+        int bestMove = 0;
+        pvLength[ply] = 0;      // the null move searches may have set it
+
+        // Try out every possible move and score the resulting state
+        MoveList moves = moveLists[ply];
+        getMoveOptions(moves, isOnPv ? prevPv[ply] : hashMove, ply);
+        for (int i = 0; i < moves.size; i++) {
+            int move = moves.pickBest(i);
+            // late move reduction: quiet moves ordered late are searched less deep first, and
+            // searched again if they turn out better than alpha
+            int reduction = 0;
+            if (i >= engine.lateMoveIndex && depthRemaining > 2 && moves.scores[i] < KILLER_ORDER
+                    && Move.getPromote(move) < 0)
+                reduction = Math.min(engine.lateMoveReduction, depthRemaining - 2);
+
+            makeMove(move);
+            double score;
+            if (i == 0) {
+                followPv = isOnPv && move == prevPv[ply];
+                score = -lookAhead(depthRemaining - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                score = -lookAhead(depthRemaining - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && reduction > 0)
+                    score = -lookAhead(depthRemaining - 1, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && score < beta)
+                    score = -lookAhead(depthRemaining - 1, -beta, -alpha, ply + 1, true);
+            }
+            state.unmakeMove();
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                }
+                if (alpha >= beta) {
+                    if (!Move.isCapture(move))
+                        updateOrdering(move, depthRemaining, ply);
+                    break;
+                }
+            }
+        }
+
+        // scores of stopped searches are not stored
+        if (!engine.isStopped() && Math.abs(bestScore) <= PlayerAI.victoryPoints) {
+            int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER
+                    : bestScore >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, bestMove, depthRemaining, bound, (int) bestScore);
+        }
+
+        return bestScore;
+    }
+
+    // Search only captures from a position lookAhead() stops at, so it is not scored in the middle
+    // of an exchange; the player to move may also stand pat, keeping the score of the position
+    private double quiesce(double alpha, double beta, int ply, int depthRemaining) {
+        countNode();
+        pvLength[ply] = 0;
+        followPv = false;
+        double bestScore = getScore() * state.playerToMove;    // stand pat
+        if (state.isGameOver() || depthRemaining == 0 || bestScore >= beta)
+            return bestScore;
+        if (bestScore > alpha)
+            alpha = bestScore;
+
+        if (engine.isStopped())
+            return 9e9;     // make ancestor ignore this score
+
+        MoveList moves = moveLists[ply];
+        getCaptureOptions(moves, ply);
+        for (int i = 0; i < moves.size; i++) {
+            int move = moves.pickBest(i);
+
+            // delta pruning: skip captures that cannot raise the score enough to matter
+            int gain = getCaptureGain(move);
+            if (gain != Integer.MAX_VALUE && bestScore + gain + engine.deltaMargin <= alpha)
+                continue;
+
+            makeMove(move);
+            double score = -quiesce(-beta, -alpha, ply + 1, depthRemaining - 1);
+            state.unmakeMove();
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha)
+                    alpha = score;
+                if (alpha >= beta)
+                    break;
+            }
+        }
+
+        return bestScore;
+    }
+
+    // change of getScore() for the player to move by a capture, Integer.MAX_VALUE if a King or
+    // Heart is involved, as that moves the targets of all distances or ends the game
+    private int getCaptureGain(int move) {
+        if ((move & Move.EN_PASSANT) != 0)
+            return Integer.MAX_VALUE;       // the kicked pawn is not on the end block, rare anyway
+        int start = Move.getStart(move);
+        int end = Move.getEnd(move);
+        Piece piece = state.board[geometry.yOf[start]][geometry.xOf[start]];
+        Piece target = state.board[geometry.yOf[end]][geometry.xOf[end]];
+        if (piece.isKing() || piece.isHeart() || target.isKing() || target.isHeart())
+            return Integer.MAX_VALUE;
+
+        // the piece moving gets closer to the targets, and the kicked piece stops counting
+        return distFromTargets(piece, start) - distFromTargets(piece, end)
+                - distFromTargets(target, end);
+    }
+
+    // the line of the node at <ply> is <move> followed by the line of the node after it
+    private void updatePv(int ply, int move) {
+        int childLength = pvLength[ply + 1];
+        pvTable[ply][0] = move;
+        System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    // the root's line starts with <move>, which <worker> searched as its root move
+    void setRootPv(int move, SearchWorker worker) {
+        pvTable[0][0] = move;
+        System.arraycopy(worker.pvTable[1], 0, pvTable[0], 1, worker.pvLength[1]);
+        pvLength[0] = worker.pvLength[1] + 1;
+    }
+
+    // the best line found by the last search of the root
+    int[] getPv() {
+        return Arrays.copyOf(pvTable[0], pvLength[0]);
+    }
+
+    // call before searching the root again, so the line of the last search is followed first
+    void startRoot() {
+        if (pvLength[0] > 0) {
+            System.arraycopy(pvTable[0], 0, prevPv, 0, pvLength[0]);
+            prevPvLength = pvLength[0];
+        }
+        pvLength[0] = 0;
+    }
+
+    // keep the result of the <i>-th root move for sortRootMoves()
+    void setRootResult(int i, double score, long nodes) {
+        rootScores[i] = score;
+        rootNodes[i] = nodes;
+    }
+
+    // order root moves for the next search: the best move first, then the others by score, then by
+    // the positions their search took, since moves harder to refute are more likely to be best;
+    // moves with equal keys keep their order
+    void sortRootMoves(MoveList moves) {
+        for (int i = 1; i < moves.size; i++) {
+            int move = moves.moves[i];
+            double score = rootScores[i];
+            long nodes = rootNodes[i];
+            int j = i;
+            while (j > 0 && (move == rootBestMove || (moves.moves[j - 1] != rootBestMove
+                    && (score > rootScores[j - 1]
+                    || (score == rootScores[j - 1] && nodes > rootNodes[j - 1]))))) {
+                moves.moves[j] = moves.moves[j - 1];
+                rootScores[j] = rootScores[j - 1];
+                rootNodes[j] = rootNodes[j - 1];
+                j--;
+            }
+            moves.moves[j] = move;
+            rootScores[j] = score;
+            rootNodes[j] = nodes;
+        }
+    }
+
+    // score of root move <move> searched <depth> moves deep within (alpha, beta), with a null
+    // window first unless <isFirst>, the same as the moves of lookAhead()
+    double searchRootMove(int move, int depth, double alpha, double beta, boolean isFirst) {
+        makeMove(move);
+        double score;
+        if (isFirst) {
+            followPv = prevPvLength > 0 && move == prevPv[0];
+            score = -lookAhead(depth - 1, -beta, -alpha, 1, true);
+        } else {
+            score = -lookAhead(depth - 1, -alpha - 1, -alpha, 1, true);
+            if (score > alpha && score < beta)
+                score = -lookAhead(depth - 1, -beta, -alpha, 1, true);
+        }
+        state.unmakeMove();
+        return score;
+    }
+
+    // Search every root move in <moves> <depth> moves deep, the same as lookAhead(); the best
+    // move found is left in rootBestMove, even if the search runs out of time
+    // if it does, the score returned is that of the moves searched in full, -9e9 if there is none
+    double searchRoot(MoveList moves, int depth, double alpha, double beta) {
+        double bestScore = -9e9;
+        rootBestMove = moves.get(0);
+        startRoot();
+
+        for (int i = 0; i < moves.size; i++) {
+            int move = moves.get(i);
+            long nodesBefore = nodeCount;
+            double score = searchRootMove(move, depth, alpha, beta, i == 0);
+
+            if (engine.isStopped())
+                break;
+            setRootResult(i, score, nodeCount - nodesBefore);
+
+            if (score > bestScore) {
+                bestScore = score;
+                rootBestMove = move;
+                setRootPv(move, this);
+                if (score > alpha)
+                    alpha = score;
+                if (alpha >= beta)
+                    break;
+            }
+        }
+
+        return bestScore;
+    }
+
+    // Lazy SMP: search the root again and again one move deeper, starting at <firstDepth>, only to
+    // fill the transposition table for the other workers; returns once engine.isStopped()
+    void searchHelper(int firstDepth) {
+        MoveList moves = getRootMoves();
+        for (int depth = firstDepth; depth <= engine.maxLookAhead; depth++) {
+            searchRoot(moves, depth, -9e9, 9e9);
+            if (engine.isStopped())
+                break;
+            sortRootMoves(moves);
+        }
+    }
+
+    // root move list, for PlayerAI.getMove()
+    MoveList getRootMoves() {
+        MoveList moves = moveLists[0];
+        getMoveOptions(moves, 0, 0);
+        for (int i = 0; i < moves.size; i++)    // root moves are searched in order
+            moves.pickBest(i);
+
+        if (rootScores.length < moves.size) {
+            rootScores = new double[moves.moves.length];
+            rootNodes = new long[moves.moves.length];
+        }
+        Arrays.fill(rootScores, -9e9);
+        Arrays.fill(rootNodes, 0);
+        return moves;
+    }
+}
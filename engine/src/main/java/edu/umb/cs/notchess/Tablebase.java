@@ -0,0 +1,217 @@
+package edu.umb.cs.notchess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+// endgame tables made by TablebaseGenerator: for every position of a few pieces on a board of some
+// dimension, whether the player to move wins or loses, and in how many moves
+// a table holds the positions of one set of pieces, its signature, in a file of its own:
+//   bytes 0-3: MAGIC, 4-5: columns, 6-7: rows, 8: number of pieces, 9-13: Piece.ordinal() of
+//   each piece, sorted, 255 if unused, 14: longest win in moves, 15: unused
+//   then one byte for each position with White to move, then for each with Black to move
+// files are memory-mapped, so opening a table does not read it
+// positions with castling, two-step pawn moves or en passant chances are not in the tables
+public class Tablebase {
+    static final int MAGIC = 0x4E544231;    // "NTB1"
+    static final int HEADER_SIZE = 16;
+    static final int MAX_PIECES = 5;
+    static final String EXTENSION = ".ntb";
+
+    // a position's byte is 0 for a draw, else the moves to the end of the game plus 1: the player
+    // to move wins if that number of moves is odd and loses if it is even, 0 moves meaning it has
+    // no moves to make
+    static final int DRAW = 0;
+    static final int UNKNOWN = -1;          // returned by probe() for positions not in any table
+    static final int WIN_SCORE = 900;       // score of winning at once, less a point for each move
+
+    private final HashMap<Long, Table> tables = new HashMap<>();
+    private int maxPieces;                  // the most pieces of a table
+
+    // table of one signature on one board dimension
+    static class Table {
+        final int columns;
+        final int rows;
+        final int size;                     // blocks of the board
+        final Piece[] pieces;               // sorted by Piece.ordinal()
+        final int positions;                // positions for each player to move
+        final int maxPlies;                 // longest win or loss in moves
+        private final ByteBuffer values;    // [White to move positions, Black to move positions]
+
+        Table(int columns, int rows, Piece[] pieces, int maxPlies, ByteBuffer values) {
+            this.columns = columns;
+            this.rows = rows;
+            this.size = columns * rows;
+            this.pieces = pieces;
+            this.positions = getPositions(size, pieces.length);
+            this.maxPlies = maxPlies;
+            this.values = values;
+        }
+
+        int get(int index) {
+            return values.get(index) & 0xFF;
+        }
+    }
+
+    /*============================================================================================*/
+    /* values */
+
+    static boolean isWin(int value) {
+        return value != DRAW && (value - 1) % 2 == 1;
+    }
+
+    static int getPlies(int value) {
+        return value - 1;
+    }
+
+    static int toValue(int plies) {
+        return plies + 1;
+    }
+
+    // score of a value for the player to move, like SearchWorker.lookAhead()
+    static double getScore(int value) {
+        if (value == DRAW)
+            return 0;
+        int plies = getPlies(value);
+        return isWin(value) ? WIN_SCORE - plies : -(WIN_SCORE - plies);
+    }
+
+    /*============================================================================================*/
+    /* indexing */
+
+    // positions of <pieceCount> pieces on <size> blocks for one player to move, -1 if over 2^31
+    static int getPositions(int size, int pieceCount) {
+        long positions = 1;
+        for (int i = 0; i < pieceCount; i++)
+            positions *= size;
+        return 2 * positions + HEADER_SIZE > Integer.MAX_VALUE ? -1 : (int) positions;
+    }
+
+    // key of a signature of pieces sorted by Piece.ordinal() on a board of a dimension
+    static long getKey(int columns, int rows, Piece[] pieces, int pieceCount) {
+        long key = ((long) columns << 40) | ((long) rows << 32);
+        for (int i = 0; i < pieceCount; i++)
+            key |= (long) (pieces[i].ordinal() + 1) << (4 * i);
+        return key;
+    }
+
+    // index of the position with pieces[i] on blocks[i], both sorted by Piece.ordinal() and then
+    // by block, and <playerToMove> to move
+    static int getIndex(Table table, int[] blocks, int playerToMove) {
+        int index = 0;
+        for (int i = table.pieces.length - 1; i >= 0; i--)
+            index = index * table.size + blocks[i];
+        return playerToMove == 1 ? index : index + table.positions;
+    }
+
+    // sort pieces[0..count) by Piece.ordinal() and then by block, moving blocks along
+    static void sortPieces(Piece[] pieces, int[] blocks, int count) {
+        for (int i = 1; i < count; i++) {
+            Piece piece = pieces[i];
+            int block = blocks[i];
+            int j = i;
+            while (j > 0 && (pieces[j - 1].ordinal() > piece.ordinal()
+                    || (pieces[j - 1] == piece && blocks[j - 1] > block))) {
+                pieces[j] = pieces[j - 1];
+                blocks[j] = blocks[j - 1];
+                j--;
+            }
+            pieces[j] = piece;
+            blocks[j] = block;
+        }
+    }
+
+    /*============================================================================================*/
+    /* tables */
+
+    void add(Table table) {
+        tables.put(getKey(table.columns, table.rows, table.pieces, table.pieces.length), table);
+        maxPieces = Math.max(maxPieces, table.pieces.length);
+    }
+
+    Table getTable(int columns, int rows, Piece[] pieces, int pieceCount) {
+        return tables.get(getKey(columns, rows, pieces, pieceCount));
+    }
+
+    // map every table file in <directory>
+    static Tablebase open(File directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        File[] files = directory.listFiles();
+        if (files == null)
+            return tablebase;
+        for (File file : files)
+            if (file.getName().endsWith(EXTENSION))
+                tablebase.add(map(file));
+        return tablebase;
+    }
+
+    static Table map(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC)
+                throw new IOException(file + " is not a table");
+            int columns = buffer.getShort(4);
+            int rows = buffer.getShort(6);
+            Piece[] pieces = new Piece[buffer.get(8)];
+            for (int i = 0; i < pieces.length; i++)
+                pieces[i] = Piece.values()[buffer.get(9 + i)];
+            int maxPlies = buffer.get(14) & 0xFF;
+
+            buffer.position(HEADER_SIZE);
+            Table table = new Table(columns, rows, pieces, maxPlies, buffer.slice());
+            if (channel.size() != HEADER_SIZE + 2L * table.positions)
+                throw new IOException(file + " is cut short");
+            return table;
+        }
+    }
+
+    // the value of <state> for the player to move, UNKNOWN if it is in no table
+    int probe(GameState state) {
+        return probe(state, new Piece[MAX_PIECES], new int[MAX_PIECES]);
+    }
+
+    // probe() with <pieces> and <blocks> of at least MAX_PIECES as scratch space, so searches can
+    // probe without allocating; each search thread needs its own
+    int probe(GameState state, Piece[] pieces, int[] blocks) {
+        int pieceCount = 0;
+        for (int i = 0; i < 3; i++)
+            pieceCount += state.wPieceCount[i] + state.bPieceCount[i];
+        if (pieceCount > maxPieces || state.hasPassingChance())
+            return UNKNOWN;
+
+        BoardGeometry geometry = state.geometry;
+        int count = 0;
+        boolean hasUnmovedKing = false, hasUnmovedRook = false;
+        for (int block = 0; block < geometry.size; block++) {
+            int x = geometry.xOf[block];
+            int y = geometry.yOf[block];
+            Piece piece = state.board[y][x];
+            if (piece == null)
+                continue;
+            if (!state.isMoved[y][x]) {
+                if (piece.isPawn())
+                    return UNKNOWN;     // it may move two steps
+                if (piece.isKing())
+                    hasUnmovedKing = true;
+                else if (piece.isRook())
+                    hasUnmovedRook = true;
+            }
+            pieces[count] = piece;
+            blocks[count++] = block;
+        }
+        // a King may castle with a Rook of either player, moves the tables were made without
+        if (hasUnmovedKing && hasUnmovedRook)
+            return UNKNOWN;
+
+        sortPieces(pieces, blocks, count);
+        Table table = getTable(geometry.columns, geometry.rows, pieces, count);
+        if (table == null)
+            return UNKNOWN;
+        return table.get(getIndex(table, blocks, state.playerToMove));
+    }
+}
@@ -0,0 +1,484 @@
+package edu.umb.cs.notchess;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// makes the tables of Tablebase by retrograde analysis, run offline:
+//   TablebaseGenerator <columns> <rows> <directory> <pieces joined by ','>...
+// e.g. "8 8 tablebases W_King,W_Rook,B_King"; the tables positions can turn into, by kicks and
+// promotions, are made first, tables already in the directory are used as they are
+// every position starts out unknown; positions whose player to move has no moves are lost, then
+// pass k finds the positions won in k moves (odd k), whose player can move to a position lost for
+// the opponent, or lost in k moves (even k), where every move goes to a position won by the
+// opponent; passes go on until they find nothing, the rest are draws
+// all pieces are taken to have moved: no castling or two-step moves, so no en passant either
+public class TablebaseGenerator {
+    private static final int MAX_PLIES = 253;   // longest win or loss kept, values are bytes
+    private static final int INVALID = 0xFF;    // value of positions that cannot happen, while generating
+    private static final int CHUNKS_PER_THREAD = 16;
+    private static final Piece[] promotions = {Piece.W_Queen, Piece.W_Bishop, Piece.W_Knight, Piece.W_Rook};
+
+    private final int columns;
+    private final int rows;
+    private final BoardGeometry geometry;
+    private final File directory;
+    private final ForkJoinPool pool;
+    private final Tablebase tablebase = new Tablebase();    // tables made or found so far
+
+    TablebaseGenerator(int columns, int rows, File directory, int threadCount) {
+        this.columns = columns;
+        this.rows = rows;
+        this.geometry = BoardGeometry.get(columns, rows);
+        this.directory = directory;
+        this.pool = new ForkJoinPool(threadCount);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: TablebaseGenerator <columns> <rows> <directory> "
+                    + "<pieces joined by ','>...");
+            System.exit(1);
+        }
+        File directory = new File(args[2]);
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("cannot make " + directory);
+
+        TablebaseGenerator generator = new TablebaseGenerator(Integer.parseInt(args[0]),
+                Integer.parseInt(args[1]), directory, Runtime.getRuntime().availableProcessors());
+        try {
+            for (int i = 3; i < args.length; i++) {
+                String[] names = args[i].split(",");
+                Piece[] pieces = new Piece[names.length];
+                for (int j = 0; j < names.length; j++)
+                    pieces[j] = Piece.valueOf(names[j].trim());
+                generator.generate(pieces);
+            }
+        } finally {
+            generator.pool.shutdown();
+        }
+    }
+
+    /*============================================================================================*/
+    /* signatures */
+
+    // sort pieces by Piece.ordinal(), the order of tables
+    private static Piece[] sort(Piece[] pieces) {
+        Piece[] sorted = pieces.clone();
+        Tablebase.sortPieces(sorted, new int[sorted.length], sorted.length);
+        return sorted;
+    }
+
+    // whether the pieces are a lost game for either player, as GameState.checkWinner()
+    private static boolean isGameOver(Piece[] pieces) {
+        return isLost(pieces, 1) || isLost(pieces, -1);
+    }
+
+    private static boolean isLost(Piece[] pieces, int player) {
+        int hearts = 0, kings = 0, others = 0;
+        for (Piece piece : pieces) {
+            if (piece == null || !piece.isBelongingTo(player))
+                continue;
+            if (piece.isHeart()) hearts++;
+            else if (piece.isKing()) kings++;
+            else others++;
+        }
+        return kings == 0 && (hearts == 0 || others == 0);
+    }
+
+    // a piece of the same player as <pawn> it can promote to
+    private static Piece getPromotion(Piece pawn, int promote) {
+        Piece piece = promotions[promote];
+        return pawn.value > 0 ? piece : Piece.values()[piece.ordinal() + Piece.B_King.ordinal()];
+    }
+
+    // pieces after pieces[mover] moves, promoting to <promote> unless -1, and kicks pieces[kicked]
+    // unless -1; null elements are removed
+    private static Piece[] getSuccessorPieces(Piece[] pieces, int mover, int kicked, int promote) {
+        Piece[] successor = new Piece[kicked < 0 ? pieces.length : pieces.length - 1];
+        int count = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            if (i == kicked)
+                continue;
+            successor[count++] = i == mover && promote >= 0 ? getPromotion(pieces[i], promote) : pieces[i];
+        }
+        return sort(successor);
+    }
+
+    private String getFileName(Piece[] pieces) {
+        StringBuilder name = new StringBuilder(columns + "x" + rows + "_");
+        for (int i = 0; i < pieces.length; i++)
+            name.append(i == 0 ? "" : "-").append(pieces[i].name());
+        return name.append(Tablebase.EXTENSION).toString();
+    }
+
+    /*============================================================================================*/
+    /* generation */
+
+    // make the table of <pieces> and those it depends on, unless they are in the directory
+    void generate(Piece[] pieces) throws IOException {
+        pieces = sort(pieces);
+        if (isGameOver(pieces)
+                || tablebase.getTable(columns, rows, pieces, pieces.length) != null)
+            return;
+        if (pieces.length > Tablebase.MAX_PIECES
+                || Tablebase.getPositions(geometry.size, pieces.length) < 0)
+            throw new IllegalArgumentException("too many positions for a table of "
+                    + Arrays.toString(pieces) + " on " + columns + "x" + rows);
+
+        File file = new File(directory, getFileName(pieces));
+        if (file.exists()) {
+            tablebase.add(Tablebase.map(file));
+            return;
+        }
+
+        // tables of the positions a move can lead to
+        for (int mover = 0; mover < pieces.length; mover++) {
+            boolean isPawn = pieces[mover].isPawn();
+            for (int kicked = -1; kicked < pieces.length; kicked++) {
+                if (kicked == mover || (kicked >= 0 && pieces[kicked].isFriendlyWith(pieces[mover])))
+                    continue;
+                for (int promote = -1; promote <= (isPawn ? 3 : -1); promote++)
+                    if (kicked >= 0 || promote >= 0)
+                        generate(getSuccessorPieces(pieces, mover, kicked, promote));
+            }
+        }
+
+        long startTime = System.nanoTime();
+        Solver solver = new Solver(pieces);
+        byte[] values = solver.solve();
+        write(file, pieces, values);
+        tablebase.add(Tablebase.map(file));
+        System.out.printf("%s: %d positions, %d passes in %d ms%n", file.getName(), values.length,
+                solver.passes, (System.nanoTime() - startTime) / 1000000);
+    }
+
+    private void write(File file, Piece[] pieces, byte[] values) throws IOException {
+        int maxPlies = 0;
+        for (int i = 0; i < values.length; i++) {
+            int value = values[i] & 0xFF;
+            if (value == INVALID)
+                values[i] = Tablebase.DRAW;
+            else if (value != Tablebase.DRAW)
+                maxPlies = Math.max(maxPlies, Tablebase.getPlies(value));
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_SIZE);
+        header.putInt(Tablebase.MAGIC).putShort((short) columns).putShort((short) rows)
+                .put((byte) pieces.length);
+        for (int i = 0; i < Tablebase.MAX_PIECES; i++)
+            header.put((byte) (i < pieces.length ? pieces[i].ordinal() : 0xFF));
+        header.put((byte) maxPlies);
+
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            output.write(header.array());
+            output.write(values);
+        }
+    }
+
+    // the values of one table
+    class Solver {
+        private final Piece[] pieces;
+        private final int pieceCount;
+        private final int size;
+        private final int positions;            // for each player to move
+        private final byte[] values;            // as in the table, or 0 while unknown
+        // [mover][kicked + 1][promote + 1] -> table after pieces[mover] kicks pieces[kicked] and
+        // promotes, null for this table or if the kick ends the game
+        private final Tablebase.Table[][][] successorTables;
+        private final boolean[] isWinningKick;  // [kicked] -> kicking it ends the game
+        int maxSuccessorPlies;                  // longest win or loss of the successor tables
+        int passes;                             // passes solve() ran, besides marking invalid ones
+
+        Solver(Piece[] pieces) {
+            this.pieces = pieces;
+            pieceCount = pieces.length;
+            size = geometry.size;
+            positions = Tablebase.getPositions(size, pieceCount);
+            values = new byte[2 * positions];
+
+            successorTables = new Tablebase.Table[pieceCount][pieceCount + 1][5];
+            isWinningKick = new boolean[pieceCount];
+            for (int mover = 0; mover < pieceCount; mover++) {
+                for (int kicked = -1; kicked < pieceCount; kicked++) {
+                    if (kicked == mover)
+                        continue;
+                    for (int promote = -1; promote <= 3; promote++) {
+                        if ((kicked < 0 && promote < 0) || (promote >= 0 && !pieces[mover].isPawn()))
+                            continue;
+                        Piece[] successor = getSuccessorPieces(pieces, mover, kicked, promote);
+                        if (isGameOver(successor)) {
+                            isWinningKick[kicked] = true;
+                            continue;
+                        }
+                        Tablebase.Table table = tablebase.getTable(columns, rows, successor,
+                                successor.length);
+                        successorTables[mover][kicked + 1][promote + 1] = table;
+                        if (table != null)
+                            maxSuccessorPlies = Math.max(maxSuccessorPlies, table.maxPlies);
+                    }
+                }
+            }
+        }
+
+        byte[] solve() {
+            run(-1);    // mark the positions that cannot happen
+            int emptyPasses = 0;
+            for (int pass = 0; pass <= MAX_PLIES; pass++) {
+                passes++;
+                if (run(pass) > 0)
+                    emptyPasses = 0;
+                else if (++emptyPasses >= 2 && pass > maxSuccessorPlies)   // nothing left to find
+                    break;
+            }
+            return values;
+        }
+
+        // run a pass over all positions in parallel, return the number of positions it found
+        // a pass only sets wins or only losses, and only reads the other kind, so the order in
+        // which the threads visit the positions does not matter
+        private int run(final int pass) {
+            int chunkCount = pool.getParallelism() * CHUNKS_PER_THREAD;
+            long chunkSize = ((long) values.length + chunkCount - 1) / chunkCount;
+            List<Callable<Integer>> tasks = new ArrayList<>(chunkCount);
+            for (long start = 0; start < values.length; start += chunkSize) {
+                final int from = (int) start;
+                final int to = (int) Math.min(values.length, start + chunkSize);
+                tasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return new Worker().run(pass, from, to);
+                    }
+                });
+            }
+
+            int found = 0;
+            try {
+                for (Future<Integer> result : pool.invokeAll(tasks))
+                    found += result.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+            return found;
+        }
+
+        // scratch arrays of one thread
+        private class Worker {
+            private final int[] blocks = new int[pieceCount];
+            private final int[] occupants = new int[size];     // [block] -> index of its piece, -1 if none
+            private final Piece[] successorPieces = new Piece[pieceCount];
+            private final int[] successorBlocks = new int[pieceCount];
+            private int pass;
+            private int bestPlies;                  // of the successors visited
+            private boolean isDecided;              // no other successor can change the result
+
+            Worker() {
+                Arrays.fill(occupants, -1);
+            }
+
+            int run(int pass, int from, int to) {
+                this.pass = pass;
+                int found = 0;
+                for (int index = from; index < to; index++) {
+                    if (values[index] != Tablebase.DRAW)
+                        continue;
+                    int player = decode(index);
+                    if (pass < 0) {
+                        if (!isValid()) {
+                            values[index] = (byte) INVALID;
+                            found++;
+                        }
+                        continue;
+                    }
+
+                    for (int i = 0; i < pieceCount; i++)
+                        occupants[blocks[i]] = i;
+                    int plies = solve(player);
+                    for (int i = 0; i < pieceCount; i++)
+                        occupants[blocks[i]] = -1;
+                    if (plies >= 0) {
+                        values[index] = (byte) Tablebase.toValue(plies);
+                        found++;
+                    }
+                }
+                return found;
+            }
+
+            // fill blocks with the position of <index>, return the player to move
+            private int decode(int index) {
+                int player = index < positions ? 1 : -1;
+                int rest = index < positions ? index : index - positions;
+                for (int i = 0; i < pieceCount; i++) {
+                    blocks[i] = rest % size;
+                    rest /= size;
+                }
+                return player;
+            }
+
+            // pieces on different blocks, those of a kind in order of blocks, and no pawn where it
+            // would have been promoted
+            private boolean isValid() {
+                for (int i = 0; i < pieceCount; i++) {
+                    for (int j = 0; j < i; j++)
+                        if (blocks[j] == blocks[i])
+                            return false;
+                    if (i > 0 && pieces[i - 1] == pieces[i] && blocks[i - 1] > blocks[i])
+                        return false;
+                    if (pieces[i].isPawn()
+                            && geometry.pawnSteps[pieces[i].getPawnDirection()][blocks[i]] < 0)
+                        return false;
+                }
+                return true;
+            }
+
+            // moves of the position: a win in <pass> moves if pass is odd, a loss if it is even
+            // return the moves or -1 if the position is neither
+            // a position still unknown at pass k cannot have a win or loss shorter than k moves, so
+            // the first successor lost in fewer moves decides a win
+            private int solve(int player) {
+                boolean findWin = pass % 2 == 1;
+                bestPlies = findWin ? Integer.MAX_VALUE : -1;
+                isDecided = false;
+                for (int i = 0; i < pieceCount && !isDecided; i++)
+                    if (pieces[i].isBelongingTo(player))
+                        addMoves(i, findWin);
+                if (findWin)
+                    return isDecided ? bestPlies + 1 : -1;
+                return isDecided ? -1 : bestPlies + 1;
+            }
+
+            // visit the successors of moving pieces[mover], as Piece.addMoves() without castling,
+            // two-step moves and en passant
+            private void addMoves(int mover, boolean findWin) {
+                Piece piece = pieces[mover];
+                int start = blocks[mover];
+                switch (piece) {
+                    case W_King:
+                    case B_King:
+                        addStepMoves(mover, geometry.kingSteps[start], findWin);
+                        break;
+                    case W_Queen:
+                    case B_Queen:
+                        addSlideMoves(mover, BoardGeometry.BISHOP_DIRECTIONS,
+                                BoardGeometry.ROOK_DIRECTIONS + 3, findWin);
+                        break;
+                    case W_Bishop:
+                    case B_Bishop:
+                        addSlideMoves(mover, BoardGeometry.BISHOP_DIRECTIONS,
+                                BoardGeometry.BISHOP_DIRECTIONS + 3, findWin);
+                        break;
+                    case W_Knight:
+                    case B_Knight:
+                        addStepMoves(mover, geometry.knightJumps[start], findWin);
+                        break;
+                    case W_Rook:
+                    case B_Rook:
+                        addSlideMoves(mover, BoardGeometry.ROOK_DIRECTIONS,
+                                BoardGeometry.ROOK_DIRECTIONS + 3, findWin);
+                        break;
+                    case W_Pawn:
+                    case B_Pawn:
+                        int direction = piece.getPawnDirection();
+                        int end = geometry.pawnSteps[direction][start];
+                        if (end >= 0 && occupants[end] < 0)
+                            addPawnMove(mover, end, findWin);
+                        for (int kick : geometry.pawnKicks[direction][start])
+                            if (kick >= 0 && occupants[kick] >= 0
+                                    && !pieces[occupants[kick]].isFriendlyWith(piece))
+                                addPawnMove(mover, kick, findWin);
+                }
+            }
+
+            private void addStepMoves(int mover, int[] ends, boolean findWin) {
+                for (int end : ends) {
+                    if (isDecided)
+                        return;
+                    int occupant = occupants[end];
+                    if (occupant < 0 || !pieces[occupant].isFriendlyWith(pieces[mover]))
+                        visit(mover, end, -1, findWin);
+                }
+            }
+
+            private void addSlideMoves(int mover, int firstDir, int lastDir, boolean findWin) {
+                for (int dir = firstDir; dir <= lastDir; dir++) {
+                    for (int end : geometry.rays[dir][blocks[mover]]) {
+                        if (isDecided)
+                            return;
+                        int occupant = occupants[end];
+                        if (occupant >= 0) {
+                            if (!pieces[occupant].isFriendlyWith(pieces[mover]))
+                                visit(mover, end, -1, findWin);
+                            break;
+                        }
+                        visit(mover, end, -1, findWin);
+                    }
+                }
+            }
+
+            private void addPawnMove(int mover, int end, boolean findWin) {
+                if (geometry.pawnSteps[pieces[mover].getPawnDirection()][end] < 0) {
+                    for (int promote = 0; promote <= 3 && !isDecided; promote++)
+                        visit(mover, end, promote, findWin);
+                } else {
+                    visit(mover, end, -1, findWin);
+                }
+            }
+
+            // look up the position after pieces[mover] moves to <end>, for the opponent to move
+            // a win needs one successor lost for the opponent in less than <pass> moves, a loss
+            // needs every successor won by the opponent in less than <pass> moves
+            private void visit(int mover, int end, int promote, boolean findWin) {
+                int value = getSuccessorValue(mover, end, promote);
+                boolean isKnown = value != Tablebase.DRAW;
+                boolean isOpponentWin = isKnown && Tablebase.isWin(value);
+                int plies = Tablebase.getPlies(value);
+                if (findWin) {
+                    if (isKnown && !isOpponentWin && plies < pass) {
+                        bestPlies = plies;
+                        isDecided = true;
+                    }
+                } else if (isOpponentWin && plies < pass) {
+                    bestPlies = Math.max(bestPlies, plies);
+                } else {
+                    isDecided = true;
+                }
+            }
+
+            private int getSuccessorValue(int mover, int end, int promote) {
+                int kicked = occupants[end];
+                if (kicked >= 0 && isWinningKick[kicked])
+                    return Tablebase.toValue(0);    // the opponent has lost
+
+                Tablebase.Table table = successorTables[mover][kicked + 1][promote + 1];
+                if (table == null && (kicked >= 0 || promote >= 0))
+                    return Tablebase.DRAW;          // not a table of the directory
+                int count = 0;
+                for (int i = 0; i < pieceCount; i++) {
+                    if (i == kicked)
+                        continue;
+                    successorPieces[count] = i == mover && promote >= 0
+                            ? getPromotion(pieces[i], promote) : pieces[i];
+                    successorBlocks[count++] = i == mover ? end : blocks[i];
+                }
+                Tablebase.sortPieces(successorPieces, successorBlocks, count);
+
+                int index = 0;
+                for (int i = count - 1; i >= 0; i--)
+                    index = index * size + successorBlocks[i];
+                if (table == null)
+                    return values[index + (pieces[mover].isBelongingTo(1) ? positions : 0)] & 0xFF;
+                return table.get(index + (pieces[mover].isBelongingTo(1) ? table.positions : 0));
+            }
+        }
+    }
+}
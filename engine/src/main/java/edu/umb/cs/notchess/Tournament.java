@@ -0,0 +1,312 @@
+package edu.umb.cs.notchess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// plays two configurations of PlayerAI against each other, to tell whether a change makes the
+// computer player stronger, run offline:
+//   Tournament <config A> <config B> [time <ms> | nodes <n>] [games <n>] [threads <n>]
+//              [elo0 <elo>] [elo1 <elo>] [alpha <p>] [beta <p>] [seed <n>]
+// a config is "default" or settings of PlayerAI separated by commas, e.g. nullMoveReduction=0,hashSizeMB=32
+// time / nodes: every move is searched for this many milliseconds / positions, 100 ms by default
+// games: at most this many games are played, 20000 by default
+// threads: this many games are played at the same time, each by a PlayerAI of one thread per
+// config; all cores by default
+// the games come in pairs on the same opening with the colors swapped, the openings are a few random
+// moves into the levels of Levels.boards and into random boards in turn
+// a sequential probability ratio test stops the games once it tells whether A is elo0 or elo1
+// stronger than B (0 and 5 by default), wrongly with the chances alpha and beta (0.05 each)
+public class Tournament {
+    private static final int OPENING_MOVES = 4;     // random moves made from the board of a pair
+    private static final int MAX_PLIES = 300;       // moves after the opening before a game is drawn
+    private static final int MIN_RANDOM_SIZE = 6;   // columns and rows of random boards ...
+    private static final int MAX_RANDOM_SIZE = 10;
+    private static final int REPORT_GAMES = 20;     // games between progress reports
+
+    private final String[] configs;
+    private final int timeLimit;
+    private final long nodeLimit;
+    private final int maxGames;
+    private final long seed;
+    private final double score0;        // expected score of A if it is elo0 stronger
+    private final double score1;        // ... or elo1 stronger
+    private final double lowerBound;    // log-likelihood ratio at which elo0 is accepted
+    private final double upperBound;    // ... and elo1
+
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private volatile boolean isDecided;
+
+    // results of A, guarded by the lock of this
+    private int wins;
+    private int draws;
+    private int losses;
+    private final long[] nodes = new long[2];       // searched by A and B
+    private final long[] thinkTime = new long[2];   // nanoseconds spent by A and B in getMove()
+
+    Tournament(String[] configs, int timeLimit, long nodeLimit, int maxGames, long seed,
+               double elo0, double elo1, double alpha, double beta) {
+        this.configs = configs;
+        this.timeLimit = timeLimit;
+        this.nodeLimit = nodeLimit;
+        this.maxGames = maxGames;
+        this.seed = seed;
+        score0 = toScore(elo0);
+        score1 = toScore(elo1);
+        lowerBound = Math.log(beta / (1 - alpha));
+        upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: Tournament <config A> <config B> [time <ms> | nodes <n>] "
+                    + "[games <n>] [threads <n>] [elo0 <elo>] [elo1 <elo>] [alpha <p>] [beta <p>] "
+                    + "[seed <n>]");
+            System.exit(1);
+        }
+        int timeLimit = 100, maxGames = 20000;
+        long nodeLimit = 0, seed = 1;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        double elo0 = 0, elo1 = 5, alpha = 0.05, beta = 0.05;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "time": timeLimit = Integer.parseInt(args[++i]); break;
+                case "nodes": nodeLimit = Long.parseLong(args[++i]); break;
+                case "games": maxGames = Integer.parseInt(args[++i]); break;
+                case "threads": threadCount = Integer.parseInt(args[++i]); break;
+                case "elo0": elo0 = Double.parseDouble(args[++i]); break;
+                case "elo1": elo1 = Double.parseDouble(args[++i]); break;
+                case "alpha": alpha = Double.parseDouble(args[++i]); break;
+                case "beta": beta = Double.parseDouble(args[++i]); break;
+                case "seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (nodeLimit > 0)
+            timeLimit = Integer.MAX_VALUE;      // only the node limit stops searches
+
+        // the progress of every search is too much for thousands of games
+        Logger.getLogger("AI").setLevel(Level.WARNING);
+
+        Tournament tournament = new Tournament(new String[]{args[0], args[1]}, timeLimit, nodeLimit,
+                maxGames, seed, elo0, elo1, alpha, beta);
+        newPlayer(args[0], timeLimit, nodeLimit);     // fail on a wrong config before any game
+        newPlayer(args[1], timeLimit, nodeLimit);
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            tournament.run(pool, threadCount);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // a PlayerAI of one thread with the settings of <config> and the given limits of each move
+    static PlayerAI newPlayer(String config, int timeLimit, long nodeLimit) {
+        PlayerAI player = new PlayerAI();
+        player.threadCount = 1;
+        player.timeLimit = timeLimit;
+        player.nodeLimit = nodeLimit;
+        if (config.equals("default"))
+            return player;
+
+        for (String setting : config.split(",")) {
+            String[] pair = setting.split("=", 2);
+            if (pair.length != 2)
+                throw new IllegalArgumentException("setting without a value: " + setting);
+            String value = pair[1];
+            switch (pair[0]) {
+                case "minLookAhead": player.minLookAhead = Integer.parseInt(value); break;
+                case "maxLookAhead": player.maxLookAhead = Integer.parseInt(value); break;
+                case "aspirationWindow": player.aspirationWindow = Double.parseDouble(value); break;
+                case "maxQuiescenceDepth": player.maxQuiescenceDepth = Integer.parseInt(value); break;
+                case "deltaMargin": player.deltaMargin = Double.parseDouble(value); break;
+                case "nullMoveReduction": player.nullMoveReduction = Integer.parseInt(value); break;
+                case "lateMoveReduction": player.lateMoveReduction = Integer.parseInt(value); break;
+                case "lateMoveIndex": player.lateMoveIndex = Integer.parseInt(value); break;
+                case "hashSizeMB": player.hashSizeMB = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("unknown setting " + pair[0]);
+            }
+        }
+        return player;
+    }
+
+    /*============================================================================================*/
+    /* games */
+
+    // play games on <threadCount> of the pool's threads until the test decides or <maxGames>
+    void run(ForkJoinPool pool, int threadCount) {
+        long startTime = System.nanoTime();
+        List<Callable<Void>> tasks = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    playGames();
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        report(System.nanoTime() - startTime);
+    }
+
+    // one thread's games, with its own players, one game at a time
+    private void playGames() {
+        PlayerAI[] players = {newPlayer(configs[0], timeLimit, nodeLimit),
+                newPlayer(configs[1], timeLimit, nodeLimit)};
+        while (!isDecided) {
+            int game = nextGame.getAndIncrement();
+            if (game >= maxGames)
+                return;
+            playGame(game, players);
+        }
+    }
+
+    // play the <game>-th game, A is White in the first game of a pair
+    private void playGame(int game, PlayerAI[] players) {
+        boolean isAWhite = game % 2 == 0;
+        GameState state = getOpening(game / 2);
+        long[] gameNodes = new long[2];
+        long[] gameTime = new long[2];
+        for (PlayerAI player : players)
+            player.newGame();
+
+        int winner = 0;
+        MoveList moves = new MoveList(64);
+        for (int ply = 0; ply < MAX_PLIES && winner == 0; ply++) {
+            moves.size = 0;
+            PlayerAI.addMoves(state, moves);
+            if (moves.size == 0) {
+                winner = -state.playerToMove;   // a player who cannot move loses, as in the search
+                break;
+            }
+
+            int side = (state.playerToMove == 1) == isAWhite ? 0 : 1;
+            long startTime = System.nanoTime();
+            int[] move = players[side].getMove(state);
+            gameTime[side] += System.nanoTime() - startTime;
+            gameNodes[side] += players[side].nodeCount;
+            state.makeMove(move[0], move[1], move[2], move[3], move[4], null);
+            state.clearUndo();
+            winner = state.checkWinner();
+        }
+
+        int result = winner == 0 ? 0 : (winner == 1) == isAWhite ? 1 : -1;
+        addResult(result, gameNodes, gameTime);
+    }
+
+    // the start of the games of the <pair>-th pair, the same for both games of it
+    private GameState getOpening(int pair) {
+        Random random = new Random(seed * 31 + pair);
+        int index = pair % (Levels.boards.length + 1);
+        Piece[][] board = index < Levels.boards.length ? Levels.boards[index]
+                : Levels.getRandomBoard(
+                        MIN_RANDOM_SIZE + random.nextInt(MAX_RANDOM_SIZE - MIN_RANDOM_SIZE + 1),
+                        MIN_RANDOM_SIZE + random.nextInt(MAX_RANDOM_SIZE - MIN_RANDOM_SIZE + 1),
+                        random);
+
+        GameState state = GameState.getStartState(board, true);
+        MoveList moves = new MoveList(64);
+        for (int i = 0; i < OPENING_MOVES; i++) {
+            moves.size = 0;
+            PlayerAI.addMoves(state, moves);
+            if (moves.size == 0)
+                break;
+            state.makeMove(moves.get(random.nextInt(moves.size)));
+            if (state.checkWinner() != 0) {
+                state.unmakeMove();     // the game would be over before it started
+                break;
+            }
+        }
+        return state;
+    }
+
+    /*============================================================================================*/
+    /* results */
+
+    // count a game of A, <result> 1 for a win, 0 for a draw and -1 for a loss
+    // games finished after the test has decided are left out, so the report shows the decision
+    private synchronized void addResult(int result, long[] gameNodes, long[] gameTime) {
+        if (isDecided)
+            return;
+        if (result > 0)
+            wins++;
+        else if (result < 0)
+            losses++;
+        else
+            draws++;
+        for (int i = 0; i < 2; i++) {
+            nodes[i] += gameNodes[i];
+            thinkTime[i] += gameTime[i];
+        }
+
+        double llr = getLlr();
+        if (llr <= lowerBound || llr >= upperBound)
+            isDecided = true;
+        int games = wins + draws + losses;
+        if (games % REPORT_GAMES == 0 && !isDecided)
+            System.out.printf("%s, LLR %.2f (%.2f, %.2f)%n", resultToString(), llr, lowerBound,
+                    upperBound);
+    }
+
+    // log-likelihood ratio of A being elo1 rather than elo0 stronger than B, by the normal
+    // approximation of the mean score of the games so far
+    private double getLlr() {
+        int games = wins + draws + losses;
+        double score = (wins + draws / 2.0) / games;
+        double variance = (wins + draws / 4.0) / games - score * score;
+        if (variance <= 0)
+            return 0;   // every game had the same result, too few to tell anything
+        return (score1 - score0) * (2 * score - score0 - score1) / (2 * variance / games);
+    }
+
+    // "+wins =draws -losses" of A and its Elo difference to B with the 95% confidence interval
+    private String resultToString() {
+        int games = wins + draws + losses;
+        double score = (wins + draws / 2.0) / games;
+        double deviation = Math.sqrt(((wins + draws / 4.0) / games - score * score) / games);
+        double elo = toElo(score);
+        double margin = (toElo(Math.min(score + 1.96 * deviation, 1))
+                - toElo(Math.max(score - 1.96 * deviation, 0))) / 2;
+        return String.format("games %d: +%d =%d -%d, Elo %.1f +- %.1f", games, wins, draws, losses,
+                elo, margin);
+    }
+
+    private synchronized void report(long wallTime) {
+        System.out.println(resultToString());
+        double llr = getLlr();
+        if (llr >= upperBound)
+            System.out.printf("LLR %.2f: A is stronger by at least %.1f Elo%n", llr, toElo(score1));
+        else if (llr <= lowerBound)
+            System.out.printf("LLR %.2f: A is not stronger by %.1f Elo%n", llr, toElo(score1));
+        else
+            System.out.printf("LLR %.2f: undecided (%.2f, %.2f)%n", llr, lowerBound, upperBound);
+
+        for (int i = 0; i < 2; i++)
+            System.out.printf("%s: %s, %d nodes/s%n", i == 0 ? "A" : "B", configs[i],
+                    (long) (nodes[i] / Math.max(1e-9, thinkTime[i] / 1e9)));
+        System.out.printf("all threads: %d nodes/s in %d s%n",
+                (long) ((nodes[0] + nodes[1]) / Math.max(1e-9, wallTime / 1e9)), wallTime / 1000000000);
+    }
+
+    // expected score of a player <elo> stronger than its opponent, 1 for a win and 0.5 for a draw
+    static double toScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    static double toElo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+}
@@ -0,0 +1,104 @@
+package edu.umb.cs.notchess;
+
+// results of searched positions by Zobrist key, so PlayerAI does not search a position twice
+// entries are two longs, {key ^ data, data}, in buckets of two: the first entry keeps the deepest
+// search, the second is always replaced; there are no locks, a read of an entry another thread
+// is writing fails the key check and is a miss
+public class TranspositionTable {
+    // bound of a stored score
+    static final int UPPER = 1;         // the score is at most this
+    static final int LOWER = 2;         // the score is at least this
+    static final int EXACT = 3;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_LONGS = 2 * ENTRY_LONGS;
+
+    // data: bits 0-24: move, 25-32: depth, 33-34: bound, 35-42: generation, 48-63: score
+    private static final int DEPTH_SHIFT = 25;
+    private static final int BOUND_SHIFT = 33;
+    private static final int GENERATION_SHIFT = 35;
+    private static final int SCORE_SHIFT = 48;
+
+    private final long[] table;
+    private final int bucketMask;       // number of buckets - 1
+    private int generation;             // searches started, so entries of old searches go first
+
+    // a table using at most <sizeMB> MB
+    TranspositionTable(int sizeMB) {
+        long buckets = Long.highestOneBit(Math.max(1, ((long) sizeMB << 20) / (BUCKET_LONGS * 8)));
+        buckets = Math.min(buckets, 1 << 26);   // so the table fits a Java array
+        table = new long[(int) buckets * BUCKET_LONGS];
+        bucketMask = (int) buckets - 1;
+    }
+
+    // call at the start of every search
+    void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    void clear() {
+        java.util.Arrays.fill(table, 0);
+    }
+
+    /*============================================================================================*/
+    /* entries */
+
+    // returns the data stored for a key, 0 if there is none
+    long probe(long key) {
+        int bucket = ((int) key & bucketMask) * BUCKET_LONGS;
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0)
+                return data;
+        }
+        return 0;
+    }
+
+    // <score> must be within Short's range
+    void store(long key, int move, int depth, int bound, int score) {
+        long data = (move & 0x1FFFFFFL)
+                | ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT)
+                | ((long) (score & 0xFFFF) << SCORE_SHIFT);
+
+        int bucket = ((int) key & bucketMask) * BUCKET_LONGS;
+        long deepData = table[bucket + 1];
+        boolean isSameKey = (table[bucket] ^ deepData) == key;
+
+        // keep a hash move if the new search of the same position did not find one
+        if (isSameKey && move == 0)
+            data |= deepData & 0x1FFFFFFL;
+
+        // the first entry is replaced by searches as deep, of the same key, or of a new search
+        int i = bucket + ENTRY_LONGS;
+        if (deepData == 0 || isSameKey || depth >= getDepth(deepData)
+                || getGeneration(deepData) != generation)
+            i = bucket;
+        table[i] = key ^ data;
+        table[i + 1] = data;
+    }
+
+    /*============================================================================================*/
+    /* reading data returned by probe() */
+
+    static int getMove(long data) {
+        return (int) (data & 0x1FFFFFF);
+    }
+
+    static int getDepth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    static int getBound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    static int getScore(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    private static int getGeneration(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+    }
+}
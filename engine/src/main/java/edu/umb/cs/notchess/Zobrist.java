@@ -0,0 +1,80 @@
+package edu.umb.cs.notchess;
+
+// random keys for hashing a GameState, so positions reached by different moves can be recognized
+// a position's key is the XOR of the keys of everything in it, so a move only has to XOR the keys
+// of what it changes; keys are the same in every run, so they can be saved to files
+public final class Zobrist {
+    private static final int MAX_BLOCKS = BoardGeometry.MAX_SIZE * BoardGeometry.MAX_SIZE;
+
+    private static final long[][] pieceKeys = new long[Piece.values().length][MAX_BLOCKS];
+    private static final long[] movedKeys = new long[MAX_BLOCKS];       // isMoved of a block
+    private static final long[] passingKeys = new long[MAX_BLOCKS];     // block passed by a pawn
+    static final long blackToMoveKey;
+
+    static {
+        long seed = 0x4E6F744368657373L;    // fixed, so keys never change
+        for (long[] keys : pieceKeys)
+            for (int i = 0; i < MAX_BLOCKS; i++)
+                keys[i] = seed = nextRandom(seed);
+        for (int i = 0; i < MAX_BLOCKS; i++)
+            movedKeys[i] = seed = nextRandom(seed);
+        for (int i = 0; i < MAX_BLOCKS; i++)
+            passingKeys[i] = seed = nextRandom(seed);
+        blackToMoveKey = nextRandom(seed);
+    }
+
+    // private constructor prevents someone from accidentally instantiating this class
+    private Zobrist() {}
+
+    // SplitMix64, a fixed generator instead of java.util.Random so keys only depend on the seed
+    private static long nextRandom(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /*============================================================================================*/
+    /* keys */
+
+    // key of the piece on a block; isMoved only matters to Kings, Rooks and Pawns
+    static long getBlockKey(Piece piece, boolean isMoved, int block) {
+        if (piece == null)
+            return 0;
+        long key = pieceKeys[piece.ordinal()][block];
+        if (isMoved && (piece.isKing() || piece.isRook() || piece.isPawn()))
+            key ^= movedKeys[block];
+        return key;
+    }
+
+    // key of the en passant chance given by a pawn that moved two steps in the last move
+    static long getPassingKey(Piece[][] board, int[] lastMove) {
+        if (lastMove == null)
+            return 0;
+        int xStart = lastMove[0];
+        int yStart = lastMove[1];
+        int xEnd = lastMove[2];
+        int yEnd = lastMove[3];
+        Piece piece = board[yEnd][xEnd];
+        boolean isTwoSteps = (xStart == xEnd && Math.abs(yEnd - yStart) == 2)
+                || (yStart == yEnd && Math.abs(xEnd - xStart) == 2);
+        if (piece == null || !piece.isPawn() || !isTwoSteps)
+            return 0;
+        int xPassed = (xStart + xEnd) / 2;
+        int yPassed = (yStart + yEnd) / 2;
+        return passingKeys[yPassed * board[0].length + xPassed];
+    }
+
+    // key of a whole GameState computed from scratch, GameState keeps its own key up to date
+    static long getKey(GameState state) {
+        Piece[][] board = state.board;
+        int columns = board[0].length;
+        long key = getPassingKey(board, state.lastMove);
+        if (state.playerToMove == -1)
+            key ^= blackToMoveKey;
+        for (int y = 0; y < board.length; y++)
+            for (int x = 0; x < columns; x++)
+                key ^= getBlockKey(board[y][x], state.isMoved[y][x], y * columns + x);
+        return key;
+    }
+}
@@ -0,0 +1,175 @@
+package edu.umb.cs.notchess;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// random games on the levels and on random boards, checking at every position that what moves keep
+// up to date is what a GameState made from scratch computes
+public class GameStateTest {
+    private static final int GAMES_PER_BOARD = 3;
+    private static final int MAX_PLIES = 60;
+
+    private interface PositionCheck {
+        void check(GameState state);
+    }
+
+    private static Piece[][][] getBoards() {
+        Piece[][][] boards = Arrays.copyOf(Levels.boards, Levels.boards.length + 3);
+        boards[Levels.boards.length] = Levels.getRandomBoard(8, 8, new Random(1));
+        boards[Levels.boards.length + 1] = Levels.getRandomBoard(9, 7, new Random(2));
+        boards[Levels.boards.length + 2] = Levels.getRandomBoard(12, 12, new Random(3));
+        return boards;
+    }
+
+    private static MoveList getMoves(GameState state) {
+        MoveList moves = new MoveList(64);
+        for (int y = 0; y < state.board.length; y++) {
+            for (int x = 0; x < state.board[0].length; x++) {
+                Piece piece = state.board[y][x];
+                if (piece != null && piece.isBelongingTo(state.playerToMove))
+                    piece.addMoves(state, x, y, false, moves);
+            }
+        }
+        return moves;
+    }
+
+    private static int[] getSortedMoves(GameState state) {
+        MoveList moves = getMoves(state);
+        int[] sorted = Arrays.copyOf(moves.moves, moves.size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // play random games on bitboards, with the same moves on attack maps, checking they give the
+    // same moves and attacks, and calling <check> with the position after every move on the way
+    private static void walk(PositionCheck check) {
+        Piece[][][] boards = getBoards();
+        for (int i = 0; i < boards.length; i++) {
+            for (int game = 0; game < GAMES_PER_BOARD; game++) {
+                Random random = new Random(i * 31 + game);
+                GameState state = GameState.getStartState(boards[i], true);
+                GameState attackMapState = GameState.getStartState(boards[i], false);
+                for (int ply = 0; ply < MAX_PLIES && state.checkWinner() == 0; ply++) {
+                    String where = "board " + i + " game " + game + " ply " + ply;
+                    assertArrayEquals(where, getSortedMoves(state), getSortedMoves(attackMapState));
+                    assertSameAttacks(where, state, attackMapState);
+
+                    MoveList moves = getMoves(state);
+                    if (moves.size == 0)
+                        break;
+                    for (int j = 0; check != null && j < moves.size; j++) {
+                        state.makeMove(moves.get(j));
+                        state.checkWinner();
+                        check.check(state);
+                        state.unmakeMove();
+                    }
+
+                    int move = moves.get(random.nextInt(moves.size));
+                    state.makeMove(move);
+                    attackMapState.makeMove(move);
+                    attackMapState.checkWinner();
+                }
+            }
+        }
+    }
+
+    private static void assertSameAttacks(String where, GameState state, GameState other) {
+        for (int y = 0; y < state.board.length; y++)
+            for (int x = 0; x < state.board[0].length; x++)
+                for (int player = -1; player <= 1; player += 2)
+                    assertEquals(where + " (" + x + "," + y + ") attacked by " + player,
+                            state.isUnderAttackBy(player, x, y), other.isUnderAttackBy(player, x, y));
+    }
+
+    private static void assertSamePosition(String where, GameState expected, GameState actual) {
+        assertArrayEquals(where + " board", expected.board, actual.board);
+        assertArrayEquals(where + " isMoved", expected.isMoved, actual.isMoved);
+        assertArrayEquals(where + " lastMove", expected.lastMove, actual.lastMove);
+        assertArrayEquals(where + " white pieces", expected.wPieceCount, actual.wPieceCount);
+        assertArrayEquals(where + " black pieces", expected.bPieceCount, actual.bPieceCount);
+        assertEquals(where + " player to move", expected.playerToMove, actual.playerToMove);
+        assertEquals(where + " winner", expected.winner, actual.winner);
+        assertEquals(where + " points", expected.points, actual.points, 0);
+        assertEquals(where + " key", expected.getKey(), actual.getKey());
+        assertSameAttacks(where, expected, actual);
+    }
+
+    @Test
+    public void unmakeMoveRestoresPosition() {
+        Piece[][][] boards = getBoards();
+        for (int i = 0; i < boards.length; i++) {
+            Random random = new Random(i);
+            GameState state = GameState.getStartState(boards[i], true);
+            for (int ply = 0; ply < MAX_PLIES && state.checkWinner() == 0; ply++) {
+                MoveList moves = getMoves(state);
+                if (moves.size == 0)
+                    break;
+                GameState before = state.clone();
+                before.winner = state.winner;
+                before.points = state.points;
+                for (int j = 0; j < moves.size; j++) {
+                    state.makeMove(moves.get(j));
+                    state.checkWinner();
+                    state.unmakeMove();
+                    assertSamePosition("board " + i + " ply " + ply + " move " + j, before, state);
+                }
+                state.makeMove(moves.get(random.nextInt(moves.size)));
+            }
+        }
+    }
+
+    // a state that forgets the moves made so far, as the UI's does, reuses its undo entries and
+    // still takes back the moves made after that, lastMove included
+    @Test
+    public void clearUndoKeepsPosition() {
+        Piece[][][] boards = getBoards();
+        for (int i = 0; i < boards.length; i++) {
+            Random random = new Random(i);
+            GameState state = GameState.getStartState(boards[i], true);
+            for (int ply = 0; ply < MAX_PLIES && state.checkWinner() == 0; ply++) {
+                MoveList moves = getMoves(state);
+                if (moves.size == 0)
+                    break;
+                GameState before = state.clone();
+                for (int j = 0; j < moves.size; j++) {
+                    state.makeMove(moves.get(j));
+                    state.unmakeMove();
+                }
+                assertSamePosition("board " + i + " ply " + ply, before, state);
+                state.makeMove(moves.get(random.nextInt(moves.size)));
+                state.clearUndo();
+            }
+        }
+    }
+
+    @Test
+    public void bitboardsMatchAttackMaps() {
+        walk(null);
+    }
+
+    // the key kept up to date by moves is the key of the same position made from scratch
+    @Test
+    public void keyMatchesNewState() {
+        walk(new PositionCheck() {
+            @Override
+            public void check(GameState state) {
+                assertEquals(state.getKey(), state.clone().getKey());
+            }
+        });
+    }
+
+    // the sums kept up to date by moves are those of all pieces counted again
+    @Test
+    public void evaluationMatchesRecount() {
+        walk(new PositionCheck() {
+            @Override
+            public void check(GameState state) {
+                assertEquals(new Evaluation(state.board, state.geometry).getSum(),
+                        state.evaluation.getSum());
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package edu.umb.cs.notchess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OpeningBookTest {
+    // a book of {key, move, weight} entries, which have to be sorted by key
+    private static OpeningBook getBook(long[][] entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE
+                + entries.length * OpeningBook.ENTRY_SIZE);
+        buffer.putInt(OpeningBook.MAGIC).putInt(entries.length);
+        for (long[] entry : entries)
+            buffer.putLong(entry[0]).putInt((int) entry[1]).putShort((short) entry[2]);
+        return new OpeningBook(buffer);
+    }
+
+    @Test
+    public void movesOfKey() throws IOException {
+        OpeningBook book = getBook(new long[][]{
+                {-5, 1, 1},
+                {3, 10, 1},
+                {3, 11, 1},
+                {7, 20, 1},
+                {Long.MAX_VALUE, 30, 1},
+        });
+        assertEquals(1, book.getMove(-5));
+        assertEquals(20, book.getMove(7));
+        assertEquals(30, book.getMove(Long.MAX_VALUE));
+        for (int i = 0; i < 100; i++) {
+            int move = book.getMove(3);
+            assertTrue(move == 10 || move == 11);
+        }
+    }
+
+    @Test
+    public void missingKeys() throws IOException {
+        OpeningBook book = getBook(new long[][]{{3, 10, 1}, {7, 20, 1}});
+        assertEquals(0, book.getMove(0));
+        assertEquals(0, book.getMove(5));
+        assertEquals(0, book.getMove(8));
+        assertEquals(0, getBook(new long[0][]).getMove(3));
+    }
+
+    // moves are picked as often as their weight, never with a weight of 0
+    @Test
+    public void weights() throws IOException {
+        OpeningBook book = getBook(new long[][]{{3, 10, 0}, {3, 11, 1}, {3, 12, 3}});
+        int[] picks = new int[3];
+        for (int i = 0; i < 4000; i++)
+            picks[book.getMove(3) - 10]++;
+        assertEquals(0, picks[0]);
+        assertTrue(picks[2] > 2 * picks[1]);
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongMagic() throws IOException {
+        new OpeningBook(ByteBuffer.allocate(OpeningBook.HEADER_SIZE));
+    }
+
+    // PlayerAI plays the book's move of a position instead of searching it
+    @Test
+    public void playerAIPlaysBookMove() throws IOException {
+        GameState state = GameState.getStartState(Levels.boards[1], true);
+        MoveList moves = new MoveList(64);
+        PlayerAI.addMoves(state, moves);
+        OpeningBook book = getBook(new long[][]{{state.getKey(), moves.get(3), 1}});
+        PlayerAI playerAI = new PlayerAI();
+        playerAI.openingBook = book;
+        playerAI.threadCount = 1;
+        int[] move = playerAI.getMove(state);
+        assertArrayEquals(Move.toArray(moves.get(3), state.board[0].length), move);
+    }
+}
@@ -0,0 +1,51 @@
+package edu.umb.cs.notchess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// positions reached by every sequence of moves from the levels, counted by Perft; the counts are
+// those of the original move generation, which copied the GameState for every move, so a change to
+// the moves of Piece or to makeMove()/unmakeMove() shows here
+public class PerftTest {
+    // [level][depth - 1]
+    private static final long[][] counts = {
+            {20, 400, 9092, 206187},
+            {20, 400, 8902, 197742},
+            {9, 81, 749, 6962},
+            {27, 817, 26017, 805900},
+    };
+
+    private static long count(int level, int depth, boolean useBitboards, boolean useHash) {
+        MoveList[] moveLists = new MoveList[depth];
+        for (int i = 0; i < depth; i++)
+            moveLists[i] = new MoveList(64);
+        GameState state = GameState.getStartState(Levels.boards[level], useBitboards);
+        return new Perft(depth, useBitboards, useHash).count(state, depth, moveLists);
+    }
+
+    @Test
+    public void bitboards() {
+        for (int level = 0; level < counts.length; level++)
+            for (int depth = 1; depth <= counts[level].length; depth++)
+                assertEquals("level " + level + " depth " + depth, counts[level][depth - 1],
+                        count(level, depth, true, false));
+    }
+
+    @Test
+    public void attackMap() {
+        for (int level = 0; level < counts.length; level++)
+            for (int depth = 1; depth <= counts[level].length; depth++)
+                assertEquals("level " + level + " depth " + depth, counts[level][depth - 1],
+                        count(level, depth, false, false));
+    }
+
+    // transpositions are looked up by key, so a wrong key counts the wrong positions
+    @Test
+    public void hash() {
+        for (int level = 0; level < counts.length; level++) {
+            int depth = counts[level].length;
+            assertEquals("level " + level, counts[level][depth - 1], count(level, depth, true, true));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package edu.umb.cs.notchess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static edu.umb.cs.notchess.Piece.*;
+import static org.junit.Assert.*;
+
+// tables made by TablebaseGenerator on a small board, checked against the values of the positions
+// their moves lead to
+public class TablebaseTest {
+    private static final int COLUMNS = 4;
+    private static final int ROWS = 4;
+
+    private static Tablebase generate(File directory, Piece[]... signatures) throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(COLUMNS, ROWS, directory, 2);
+        for (Piece[] pieces : signatures)
+            generator.generate(pieces);
+        return Tablebase.open(directory);
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        directory.delete();
+    }
+
+    private static GameState getState(Piece[][] board, int playerToMove, boolean isMoved) {
+        int[] wPieceCount = {0, 0, 0};
+        int[] bPieceCount = {0, 0, 0};
+        for (Piece[] row : board) {
+            for (Piece piece : row) {
+                if (piece != null) {
+                    int idx = piece.isHeart() ? 0 : piece.isKing() ? 1 : 2;
+                    if (piece.isBelongingTo(1)) wPieceCount[idx] += 1;
+                    else bPieceCount[idx] += 1;
+                }
+            }
+        }
+        boolean[][] moved = new boolean[board.length][board[0].length];
+        for (boolean[] row : moved)
+            Arrays.fill(row, isMoved);
+        return new GameState(board, wPieceCount, bPieceCount, moved, null, playerToMove);
+    }
+
+    // the value of <state> by the values of the positions after its moves
+    private static int getSuccessorValue(Tablebase tablebase, GameState state) {
+        MoveList moves = new MoveList(64);
+        PlayerAI.addMoves(state, moves);
+        int fastestWin = Integer.MAX_VALUE;     // plies of the opponent's fastest loss
+        int slowestLoss = -1;                   // plies of the opponent's slowest win
+        boolean isLost = true;
+        for (int i = 0; i < moves.size; i++) {
+            state.makeMove(moves.get(i));
+            int value = state.checkWinner() != 0 ? 1 : tablebase.probe(state);     // lost at once
+            state.unmakeMove();
+            assertNotEquals(Tablebase.UNKNOWN, value);
+            if (value == Tablebase.DRAW)
+                isLost = false;
+            else if (Tablebase.isWin(value))
+                slowestLoss = Math.max(slowestLoss, Tablebase.getPlies(value));
+            else
+                fastestWin = Math.min(fastestWin, Tablebase.getPlies(value));
+        }
+        if (fastestWin != Integer.MAX_VALUE)
+            return fastestWin + 2;
+        return isLost ? slowestLoss + 2 : Tablebase.DRAW;
+    }
+
+    // every position of the table of <signature>, whose pieces have all moved
+    private static void checkTable(Tablebase tablebase, Piece[] signature) {
+        Piece[] pieces = signature.clone();
+        Tablebase.sortPieces(pieces, new int[pieces.length], pieces.length);
+        Tablebase.Table table = tablebase.getTable(COLUMNS, ROWS, pieces, pieces.length);
+        assertNotNull(table);
+
+        int size = COLUMNS * ROWS;
+        int checked = 0;
+        positions:
+        for (int index = 0; index < 2 * table.positions; index++) {
+            int rest = index % table.positions;
+            Piece[][] board = new Piece[ROWS][COLUMNS];
+            for (Piece piece : pieces) {
+                int block = rest % size;
+                rest /= size;
+                if (board[block / COLUMNS][block % COLUMNS] != null)
+                    continue positions;
+                board[block / COLUMNS][block % COLUMNS] = piece;
+            }
+            GameState state = getState(board, index < table.positions ? 1 : -1, true);
+            int value = tablebase.probe(state);
+            assertEquals(Arrays.deepToString(board) + " player " + state.playerToMove,
+                    getSuccessorValue(tablebase, state), value);
+            checked++;
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void valuesMatchSuccessors() throws IOException {
+        File directory = Files.createTempDirectory("tablebases").toFile();
+        try {
+            Piece[] queen = {W_King, W_Queen, B_King};
+            Piece[] rook = {W_King, B_King, B_Rook};
+            Tablebase tablebase = generate(directory, queen, rook);
+            checkTable(tablebase, queen);
+            checkTable(tablebase, rook);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    // passes go on until two in a row find nothing, and no longer than the successor tables need;
+    // a Pawn's table has those of the pieces it promotes to
+    @Test
+    public void solverStopsAfterLastValues() throws IOException {
+        File directory = Files.createTempDirectory("tablebases").toFile();
+        try {
+            Piece[] pieces = {W_King, W_Pawn, B_King};
+            TablebaseGenerator generator = new TablebaseGenerator(COLUMNS, ROWS, directory, 2);
+            generator.generate(pieces);
+            Tablebase.sortPieces(pieces, new int[pieces.length], pieces.length);
+            Tablebase.Table table = Tablebase.open(directory).getTable(COLUMNS, ROWS, pieces,
+                    pieces.length);
+
+            TablebaseGenerator.Solver solver = generator.new Solver(pieces);
+            solver.solve();
+            assertTrue(solver.maxSuccessorPlies > 0);
+            int lastPass = Math.max(table.maxPlies + 2, solver.maxSuccessorPlies + 1);
+            assertEquals(lastPass + 1, solver.passes);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    // the tables were made without castling, a King and a Rook that have not moved may castle,
+    // even with a Rook of the opponent
+    @Test
+    public void castlingPositionsAreUnknown() throws IOException {
+        File directory = Files.createTempDirectory("tablebases").toFile();
+        try {
+            Tablebase tablebase = generate(directory, new Piece[]{W_King, B_King, B_Rook});
+            Piece[][] board = {
+                    {null, B_King, null, null},
+                    {null, null, null, null},
+                    {null, null, null, null},
+                    {W_King, null, null, B_Rook},
+            };
+            assertNotEquals(Tablebase.UNKNOWN, tablebase.probe(getState(board, 1, true)));
+
+            // White's King and Black's Rook have not moved, Piece lets a King castle onto it
+            GameState state = getState(board, 1, false);
+            state.isMoved[0][1] = true;
+            assertEquals(Tablebase.UNKNOWN, tablebase.probe(state));
+            state.playerToMove = -1;
+            assertEquals(Tablebase.UNKNOWN, tablebase.probe(state));
+
+            // the Rook has moved, the Kings have not
+            state = getState(board, 1, false);
+            state.isMoved[3][3] = true;
+            assertNotEquals(Tablebase.UNKNOWN, tablebase.probe(state));
+        } finally {
+            delete(directory);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package edu.umb.cs.notchess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+    // buckets of a table of 1 MB, keys this far apart share a bucket
+    private static final long SAME_BUCKET = (1 << 20) / 32;
+
+    @Test
+    public void entryPacking() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.newSearch();
+        int move = Move.pack(80, 17, 2, Move.CAPTURE | Move.TWO_STEPS);
+        int[] scores = {0, -123, 456, Short.MIN_VALUE, Short.MAX_VALUE};
+        for (int bound = TranspositionTable.UPPER; bound <= TranspositionTable.EXACT; bound++) {
+            for (int score : scores) {
+                long key = 0x123456789ABCDEFL * (bound + 7) + score;
+                table.store(key, move, 7, bound, score);
+                long data = table.probe(key);
+                assertEquals(move, TranspositionTable.getMove(data));
+                assertEquals(7, TranspositionTable.getDepth(data));
+                assertEquals(bound, TranspositionTable.getBound(data));
+                assertEquals(score, TranspositionTable.getScore(data));
+            }
+        }
+    }
+
+    @Test
+    public void depthIsCapped() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42, 0, 1000, TranspositionTable.EXACT, 1);
+        assertEquals(0xFF, TranspositionTable.getDepth(table.probe(42)));
+    }
+
+    @Test
+    public void otherKeysMiss() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42, 0, 3, TranspositionTable.LOWER, 5);
+        assertEquals(0, table.probe(43));
+        assertEquals(0, table.probe(42 + SAME_BUCKET));
+        table.clear();
+        assertEquals(0, table.probe(42));
+    }
+
+    // a search finding no move for a position keeps the move stored for it before
+    @Test
+    public void hashMoveIsKept() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.pack(3, 4, -1, 0);
+        table.store(42, move, 2, TranspositionTable.EXACT, 1);
+        table.store(42, 0, 3, TranspositionTable.UPPER, -1);
+        long data = table.probe(42);
+        assertEquals(move, TranspositionTable.getMove(data));
+        assertEquals(3, TranspositionTable.getDepth(data));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.getBound(data));
+    }
+
+    // the deeper entry of a bucket stays, shallower ones of the same search replace each other
+    @Test
+    public void deepEntryIsKept() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.newSearch();
+        table.store(42, 0, 10, TranspositionTable.EXACT, 1);
+        table.store(42 + SAME_BUCKET, 0, 2, TranspositionTable.EXACT, 2);
+        assertEquals(1, TranspositionTable.getScore(table.probe(42)));
+        assertEquals(2, TranspositionTable.getScore(table.probe(42 + SAME_BUCKET)));
+
+        table.store(42 + 2 * SAME_BUCKET, 0, 1, TranspositionTable.EXACT, 3);
+        assertEquals(1, TranspositionTable.getScore(table.probe(42)));
+        assertEquals(0, table.probe(42 + SAME_BUCKET));
+        assertEquals(3, TranspositionTable.getScore(table.probe(42 + 2 * SAME_BUCKET)));
+
+        // a new search replaces the deep entry of an old one
+        table.newSearch();
+        table.store(42 + 3 * SAME_BUCKET, 0, 1, TranspositionTable.EXACT, 4);
+        assertEquals(0, table.probe(42));
+        assertEquals(4, TranspositionTable.getScore(table.probe(42 + 3 * SAME_BUCKET)));
+    }
+}